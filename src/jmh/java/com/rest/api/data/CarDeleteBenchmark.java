@@ -0,0 +1,111 @@
+package com.rest.api.data;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import com.rest.api.model.Car;
+
+// delete of one car by id, each in its own transaction, on embedded Derby without the second-level cache:
+// CarRepository.deleteById (SELECT, then DELETE of the loaded entity) against deleteCarById (one DELETE)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarDeleteBenchmark {
+
+	private LocalContainerEntityManagerFactoryBean factoryBean;
+	private EntityManager entityManager;
+	private JdbcTemplate jdbcTemplate;
+	private Timestamp now;
+	private long id;
+
+	@Setup
+	public void setup() {
+		// a fresh database per trial
+		SingleConnectionDataSource dataSource = new SingleConnectionDataSource("jdbc:derby:memory:delete" + System.nanoTime() + ";create=true",
+				"app", "app", true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		Flyway flyway = new Flyway();
+		flyway.setDataSource(dataSource);
+		flyway.migrate();
+
+		// column names as mapped by Spring Boot
+		Properties properties = new Properties();
+		properties.setProperty("hibernate.dialect", "org.hibernate.dialect.DerbyTenSevenDialect");
+		properties.setProperty("hibernate.physical_naming_strategy", SpringPhysicalNamingStrategy.class.getName());
+		properties.setProperty("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+		factoryBean = new LocalContainerEntityManagerFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setPackagesToScan(Car.class.getPackage().getName());
+		factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		factoryBean.setJpaProperties(properties);
+		factoryBean.afterPropertiesSet();
+		EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+		entityManager = entityManagerFactory.createEntityManager();
+		now = new Timestamp(System.currentTimeMillis());
+	}
+
+	@TearDown
+	public void tearDown() {
+		entityManager.close();
+		factoryBean.destroy();
+	}
+
+	// the car to delete, inserted outside the measured transaction
+	@Setup(Level.Invocation)
+	public void insert() {
+		jdbcTemplate.update("INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (?, ?, ?, ?, ?, ?, ?)",
+				++id, "Brand", "Model", 0, new BigDecimal("1000.00"), now, now);
+	}
+
+	@Benchmark
+	public Car loadAndDelete() {
+		return inTransaction(() -> {
+			Car car = entityManager.find(Car.class, id);
+			entityManager.remove(car);
+			return car;
+		});
+	}
+
+	@Benchmark
+	public int singleDelete() {
+		return inTransaction(() -> entityManager.createQuery("delete from Car c where c.id = ?1").setParameter(1, id).executeUpdate());
+	}
+
+	private <T> T inTransaction(Supplier<T> work) {
+		entityManager.getTransaction().begin();
+		T result = work.get();
+		entityManager.getTransaction().commit();
+		entityManager.clear();
+		return result;
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.rest.api.data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.NoopOptimizer;
+import org.hibernate.id.enhanced.Optimizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+// car insert with one CAR_ID_SEQ round trip per id (allocationSize = 1) against one per block of 50
+// (ConcurrentPooledLoOptimizer), on embedded Derby
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarIdAllocationBenchmark {
+
+	private static final int INCREMENT = 50;
+
+	private JdbcTemplate jdbcTemplate;
+	private Optimizer noop;
+	private Optimizer pooled;
+	private AccessCallback noopCallback;
+	private AccessCallback pooledCallback;
+	private Timestamp now;
+
+	@Setup
+	public void setup() {
+		// a fresh database per trial
+		jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource("jdbc:derby:memory:ids" + System.nanoTime() + ";create=true", "app", "app", true));
+		jdbcTemplate.execute("CREATE SEQUENCE NOOP_ID_SEQ AS BIGINT START WITH 1 INCREMENT BY 1");
+		jdbcTemplate.execute("CREATE SEQUENCE CAR_ID_SEQ AS BIGINT START WITH 1 INCREMENT BY " + INCREMENT);
+		jdbcTemplate.execute("CREATE TABLE CAR (ID BIGINT NOT NULL, BRAND VARCHAR(10), MODEL VARCHAR(10), VERSION INTEGER, "
+				+ "PRICE DECIMAL(10,2), INSERT_DATE TIMESTAMP, UPDATE_DATE TIMESTAMP, PRIMARY KEY (ID))");
+
+		noop = new NoopOptimizer(Long.class, 1);
+		pooled = new ConcurrentPooledLoOptimizer(Long.class, INCREMENT);
+		noopCallback = callback("VALUES NEXT VALUE FOR NOOP_ID_SEQ");
+		pooledCallback = callback("VALUES NEXT VALUE FOR CAR_ID_SEQ");
+		now = new Timestamp(System.currentTimeMillis());
+	}
+
+	@Benchmark
+	public int insertNoop() {
+		return insert(noop.generate(noopCallback));
+	}
+
+	@Benchmark
+	public int insertPooled() {
+		return insert(pooled.generate(pooledCallback));
+	}
+
+	private int insert(Serializable id) {
+		return jdbcTemplate.update("INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (?, ?, ?, ?, ?, ?, ?)",
+				id, "Brand", "Model", 0, new BigDecimal("1000.00"), now, now);
+	}
+
+	private AccessCallback callback(String nextValue) {
+		return new AccessCallback() {
+			@Override
+			public IntegralDataTypeHolder getNextValue() {
+				return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class)
+						.initialize(jdbcTemplate.queryForObject(nextValue, Long.class));
+			}
+
+			@Override
+			public String getTenantIdentifier() {
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.rest.api.service;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
+import org.springframework.security.config.annotation.method.configuration.GlobalMethodSecurityConfiguration;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import ch.qos.logback.classic.Level;
+
+import com.rest.api.config.MethodSecurityConfig;
+import com.rest.api.data.CarRepository;
+import com.rest.api.model.Car;
+import com.rest.api.security.PermittedAuthentication;
+
+// @PreAuthorize("hasAuthority('CAR_READ')") of CarServiceImpl.findAll: SpEL interceptor against MethodSecurityConfig's bit test
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarAuthorizationBenchmark {
+
+	private AnnotationConfigApplicationContext expressionContext;
+	private AnnotationConfigApplicationContext permissionContext;
+	private CarService expression;
+	private CarService permission;
+
+	// method security before the precompiled guards
+	@Configuration
+	@EnableGlobalMethodSecurity(prePostEnabled = true)
+	public static class ExpressionSecurityConfig extends GlobalMethodSecurityConfiguration {
+
+	}
+
+	@Setup
+	public void setup() {
+		// no Spring Boot logging defaults, the interceptors would log every call at DEBUG
+		((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+		
+		expressionContext = context(ExpressionSecurityConfig.class);
+		permissionContext = context(MethodSecurityConfig.class);
+		expression = expressionContext.getBean(CarService.class);
+		permission = permissionContext.getBean(CarService.class);
+
+		// as loaded by the token services, shared by the benchmark threads
+		OAuth2Request request = new OAuth2Request(null, "client_id", null, true, null, null, null, null, null);
+		SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+		SecurityContextHolder.getContext().setAuthentication(new PermittedAuthentication(new OAuth2Authentication(request,
+				new UsernamePasswordAuthenticationToken("user", null, AuthorityUtils.createAuthorityList("CAR_READ", "CAR_CREATE", "CAR_UPDATE", "CAR_DELETE")))));
+	}
+
+	@TearDown
+	public void tearDown() {
+		expressionContext.close();
+		permissionContext.close();
+	}
+
+	@Benchmark
+	public Iterable<Car> findAllExpression() {
+		return expression.findAll();
+	}
+
+	@Benchmark
+	public Iterable<Car> findAllPermission() {
+		return permission.findAll();
+	}
+
+	private static AnnotationConfigApplicationContext context(Class<?> securityConfig) {
+		CarRepository carRepository = (CarRepository) Proxy.newProxyInstance(CarRepository.class.getClassLoader(),
+				new Class<?>[] { CarRepository.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					default:
+						return null;
+					}
+				});
+		
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.register(securityConfig, CarServiceImpl.class, LocalValidatorFactoryBean.class);
+		context.registerBean(CarRepository.class, () -> carRepository);
+		context.registerBean(CarCache.class, () -> new CarCache(carRepository, 16777216, 60000, 600000));
+		context.registerBean(CarCountCache.class, () -> new CarCountCache(false, 30000, 1000));
+		context.refresh();
+		return context;
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.rest.api.service;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.ConstraintViolationException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
+
+import com.rest.api.data.CarRepository;
+import com.rest.api.model.Car;
+
+// @Validated proxy of CarServiceImpl.add, as created by Spring Boot, against the bare service (in-memory repository stub)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarValidationBenchmark {
+
+	private CarService target;
+	private CarService validated;
+	private Car car;
+	private Car invalidCar;
+
+	@Setup
+	public void setup() {
+		CarRepository carRepository = (CarRepository) Proxy.newProxyInstance(CarRepository.class.getClassLoader(),
+				new Class<?>[] { CarRepository.class }, (proxy, method, args) -> "save".equals(method.getName()) ? args[0] : null);
+		
+		CarServiceImpl carService = new CarServiceImpl();
+		ReflectionTestUtils.setField(carService, "carRepository", carRepository);
+		ReflectionTestUtils.setField(carService, "carCache", new CarCache(carRepository, 16777216, 60000, 600000));
+		ReflectionTestUtils.setField(carService, "countCache", new CarCountCache(false, 30000, 1000));
+		target = carService;
+		
+		LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+		validator.afterPropertiesSet();
+		MethodValidationPostProcessor postProcessor = new MethodValidationPostProcessor();
+		postProcessor.setValidator(validator);
+		postProcessor.setProxyTargetClass(true);
+		postProcessor.afterPropertiesSet();
+		validated = (CarService) postProcessor.postProcessAfterInitialization(carService, "carServiceImpl");
+		
+		car = new Car(0, "Brand", "Model", 1, new BigDecimal("1000.00"), null, null);
+		invalidCar = new Car(0, "BrandTooLong", "Model", 1, new BigDecimal("1000.00"), null, null);
+	}
+
+	@Benchmark
+	public Car add() {
+		return target.add(car);
+	}
+
+	@Benchmark
+	public Car addValidated() {
+		return validated.add(car);
+	}
+
+	@Benchmark
+	public Object addInvalid() {
+		try {
+			return validated.add(invalidCar);
+		} catch (ConstraintViolationException e) {
+			return e;
+		}
+	}
+
+}
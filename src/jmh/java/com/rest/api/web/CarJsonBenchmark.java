@@ -0,0 +1,112 @@
+package com.rest.api.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.rest.api.model.Car;
+
+// response body of getCar and of a default listCars page, request body of addCar
+// *Bean: the bean (de)serializer replaced by CarJson, *Stream: written as by the message converter
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarJsonBenchmark {
+
+	private ObjectMapper objectMapper;
+	private ObjectMapper beanMapper;
+	private Car car;
+	private List<Car> cars;
+	private byte[] carJson;
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+
+	@Setup
+	public void setup() throws JsonProcessingException {
+		// same configuration as the Spring Boot ObjectMapper
+		objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+		beanMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.mixIn(Car.class, BeanCar.class).build();
+		car = new Car(1, "BMW", "320d", 0, new BigDecimal("40000.00"), ZonedDateTime.now(), ZonedDateTime.now());
+		cars = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			cars.add(new Car(i, "Brand" + i, "Model" + i, i, new BigDecimal("1000.00").add(BigDecimal.valueOf(i)), ZonedDateTime.now(), ZonedDateTime.now()));
+		}
+		carJson = objectMapper.writeValueAsBytes(car);
+	}
+
+	@Benchmark
+	public byte[] car() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(car);
+	}
+
+	@Benchmark
+	public byte[] carBean() throws JsonProcessingException {
+		return beanMapper.writeValueAsBytes(car);
+	}
+
+	@Benchmark
+	public byte[] carList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(cars);
+	}
+
+	@Benchmark
+	public byte[] carListBean() throws JsonProcessingException {
+		return beanMapper.writeValueAsBytes(cars);
+	}
+
+	@Benchmark
+	public int carListStream() throws IOException {
+		body.reset();
+		objectMapper.writeValue(body, cars);
+		return body.size();
+	}
+
+	@Benchmark
+	public int carListStreamBean() throws IOException {
+		body.reset();
+		beanMapper.writeValue(body, cars);
+		return body.size();
+	}
+
+	@Benchmark
+	public Car readCar() throws IOException {
+		return objectMapper.readValue(carJson, Car.class);
+	}
+
+	@Benchmark
+	public Car readCarBean() throws IOException {
+		return beanMapper.readValue(carJson, Car.class);
+	}
+
+	@JsonSerialize(using = JsonSerializer.None.class)
+	@JsonDeserialize(using = JsonDeserializer.None.class)
+	private abstract static class BeanCar {
+	}
+
+}
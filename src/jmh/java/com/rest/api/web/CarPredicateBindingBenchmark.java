@@ -0,0 +1,61 @@
+package com.rest.api.web;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.querydsl.binding.QuerydslBindings;
+import org.springframework.data.querydsl.binding.QuerydslBindingsFactory;
+import org.springframework.data.querydsl.binding.QuerydslPredicateBuilder;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import com.querydsl.core.types.Predicate;
+import com.rest.api.model.Car;
+
+// @QuerydslPredicate(root = Car.class) of listCars: bindings are created for every request, then the query string is bound
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarPredicateBindingBenchmark {
+
+	private final TypeInformation<Car> type = ClassTypeInformation.from(Car.class);
+	private QuerydslBindingsFactory bindingsFactory;
+	private QuerydslPredicateBuilder predicateBuilder;
+	private MultiValueMap<String, String> parameters;
+
+	@Setup
+	public void setup() {
+		bindingsFactory = new QuerydslBindingsFactory(SimpleEntityPathResolver.INSTANCE);
+		predicateBuilder = new QuerydslPredicateBuilder(new DefaultFormattingConversionService(), SimpleEntityPathResolver.INSTANCE);
+		// ?brand=BMW&model=320d&version=0&page=2&size=20
+		parameters = new LinkedMultiValueMap<>();
+		parameters.add("brand", "BMW");
+		parameters.add("model", "320d");
+		parameters.add("version", "0");
+		parameters.add("page", "2");
+		parameters.add("size", "20");
+	}
+
+	@Benchmark
+	public Predicate bind() {
+		QuerydslBindings bindings = bindingsFactory.createBindingsFor(type);
+		return predicateBuilder.getPredicate(type, parameters, bindings);
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.rest.api.web;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+// Link and Pagination-* headers of a middle page (all four links), from the request as the controller gets it
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationHeadersBenchmark {
+
+	private MockHttpServletRequest request;
+
+	@Setup
+	public void setup() {
+		request = new MockHttpServletRequest("GET", "/v1/cars");
+		request.setServerName("localhost");
+		request.setServerPort(8080);
+		request.setQueryString("brand=BMW&withCount=true&page=5&size=20");
+	}
+
+	@Benchmark
+	public HttpHeaders paged() {
+		HttpHeaders headers = new HttpHeaders();
+		PaginationHeaders.writePage(headers, PaginationHeaders.pageBase(request), 1000, 5, 50, 20, false);
+		return headers;
+	}
+
+	@Benchmark
+	public HttpHeaders sliced() {
+		HttpHeaders headers = new HttpHeaders();
+		PaginationHeaders.writeSlice(headers, PaginationHeaders.pageBase(request), 5, 20, true);
+		return headers;
+	}
+
+}
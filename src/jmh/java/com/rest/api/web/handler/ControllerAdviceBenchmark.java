@@ -0,0 +1,80 @@
+package com.rest.api.web.handler;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rest.api.exception.CarNotFoundException;
+import com.rest.api.model.Car;
+import com.rest.api.web.CarRest;
+
+// error body of the most frequent failures: handler, message lookup and JSON
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerAdviceBenchmark {
+
+	private final Locale locale = Locale.ENGLISH;
+	private ControllerAdvice controllerAdvice;
+	private ObjectMapper objectMapper;
+	private MethodArgumentNotValidException argumentNotValid;
+	private ConstraintViolationException constraintViolation;
+
+	@Setup
+	public void setup() throws Exception {
+		ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+		messageSource.setBasename("messages");
+		controllerAdvice = new ControllerAdvice().setMessageSource(messageSource);
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		
+		Car car = new Car(0, "BrandTooLong", "ModelTooLong", 1, new BigDecimal("1000.00"), null, null);
+		BeanPropertyBindingResult result = new BeanPropertyBindingResult(car, "car");
+		result.rejectValue("brand", "Size", "size must be between 0 and 10");
+		result.rejectValue("model", "Size", "size must be between 0 and 10");
+		argumentNotValid = new MethodArgumentNotValidException(new MethodParameter(CarRest.class.getMethod("addCar", Car.class), 0), result);
+		
+		Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+		constraintViolation = new ConstraintViolationException(validator.validate(car));
+	}
+
+	@Benchmark
+	public byte[] carNotFound() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(controllerAdvice.handleCarNotFound(new CarNotFoundException(), locale));
+	}
+
+	@Benchmark
+	public byte[] methodArgumentNotValid() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(controllerAdvice.handleMethodArgumentNotValid(argumentNotValid, locale));
+	}
+
+	@Benchmark
+	public byte[] constraintViolation() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(controllerAdvice.handleConstraintViolationException(constraintViolation, locale));
+	}
+
+}
@@ -1,12 +1,37 @@
 package com.rest.api.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.AccessDecisionManager;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.method.MethodSecurityMetadataSource;
+import org.springframework.security.access.vote.AbstractAccessDecisionManager;
+import org.springframework.security.access.vote.AffirmativeBased;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.method.configuration.GlobalMethodSecurityConfiguration;
 
+import com.rest.api.security.PermissionMetadataSource;
+import com.rest.api.security.PermissionVoter;
+
 // Enable spring security on service layer
 @Configuration
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class MethodSecurityConfig extends GlobalMethodSecurityConfiguration {
 
+	// hasAuthority('CAR_*') guards checked as a bit test, other expressions still evaluated
+	@Override
+	protected MethodSecurityMetadataSource customMethodSecurityMetadataSource() {
+		return new PermissionMetadataSource();
+	}
+
+	@Override
+	protected AccessDecisionManager accessDecisionManager() {
+		List<AccessDecisionVoter<?>> voters = new ArrayList<>();
+		voters.add(new PermissionVoter());
+		voters.addAll(((AbstractAccessDecisionManager) super.accessDecisionManager()).getDecisionVoters());
+		return new AffirmativeBased(voters);
+	}
+
 }
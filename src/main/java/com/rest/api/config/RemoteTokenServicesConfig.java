@@ -0,0 +1,67 @@
+package com.rest.api.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.rest.api.security.CachingTokenServices;
+import com.rest.api.security.ExpiryAccessTokenConverter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Opaque tokens (oauth.token-services=remote): checked by the authorization server, results cached
+@Configuration
+@ConditionalOnProperty(name = "oauth.token-services", havingValue = "remote")
+public class RemoteTokenServicesConfig {
+
+	@Value("${oauth.check.url}")
+	private String checkUrl;
+
+	@Value("${oauth.client.id}")
+	private String clientId;
+
+	@Value("${oauth.client.secret}")
+	private String clientSecret;
+
+	@Bean
+	public CachingTokenServices remoteTokenServices(ObjectProvider<MeterRegistry> registry,
+			@Value("${oauth.check.cache.max-entries:10000}") long maxEntries,
+			@Value("${oauth.check.cache.max-ttl:60000}") long maxTtl,
+			@Value("${oauth.check.cache.negative-ttl:10000}") long negativeTtl,
+			@Value("${oauth.check.timeout:5000}") int timeout) {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(timeout);
+		requestFactory.setReadTimeout(timeout);
+		RestTemplate restTemplate = new RestTemplate(requestFactory);
+		// invalid tokens are answered with 400 and an error body, as in RemoteTokenServices
+		restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+			@Override
+			public void handleError(ClientHttpResponse response) throws IOException {
+				if (response.getRawStatusCode() != 400) {
+					super.handleError(response);
+				}
+			}
+		});
+
+		RemoteTokenServices tokenServices = new RemoteTokenServices();
+		tokenServices.setRestTemplate(restTemplate);
+		tokenServices.setCheckTokenEndpointUrl(checkUrl);
+		tokenServices.setClientId(clientId);
+		tokenServices.setClientSecret(clientSecret);
+		tokenServices.setAccessTokenConverter(new ExpiryAccessTokenConverter());
+
+		CachingTokenServices cachingTokenServices = new CachingTokenServices(tokenServices, maxEntries, maxTtl, negativeTtl);
+		registry.ifAvailable(cachingTokenServices::bindMetrics);
+		return cachingTokenServices;
+	}
+
+}
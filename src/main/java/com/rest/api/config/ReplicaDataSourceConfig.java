@@ -0,0 +1,103 @@
+package com.rest.api.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import com.rest.api.data.ReplicaJpaDialect;
+import com.rest.api.data.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Read replicas (car.replicas.urls): read-only transactions on the replicas, the others on spring.datasource.
+// The shared caches are filled from spring.datasource only
+@Configuration
+@ConditionalOnProperty(name = "car.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+	// the only DataSource bean: the data source initializer of Spring Boot, triggered by every DataSource bean,
+	// needs the primary one. Replica pools start even when down, a read then waits connection-timeout ms and
+	// skips the replica
+	@Bean
+	@Primary
+	public DataSource dataSource(DataSourceProperties properties, Environment environment,
+			ObjectProvider<MeterRegistry> registry,
+			@Value("${car.replicas.urls}") String[] urls,
+			@Value("${car.replicas.selection:round-robin}") String selection,
+			@Value("${car.replicas.sticky-window:5000}") long stickyWindow,
+			@Value("${car.replicas.retry-interval:10000}") long retryInterval,
+			@Value("${car.replicas.connection-timeout:1000}") long connectionTimeout) {
+		// the data source Spring Boot would create
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		registry.ifAvailable(primary::setMetricRegistry);
+
+		// driver, credentials and pool size of the primary
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		for (String url : urls) {
+			HikariConfig config = new HikariConfig();
+			config.setPoolName("replica-" + (replicas.size() + 1));
+			config.setDriverClassName(properties.determineDriverClassName());
+			config.setJdbcUrl(url.trim());
+			config.setUsername(properties.determineUsername());
+			config.setPassword(properties.determinePassword());
+			// Hikari default unless set
+			if (primary.getMaximumPoolSize() > 0) {
+				config.setMaximumPoolSize(primary.getMaximumPoolSize());
+			}
+			config.setConnectionTimeout(connectionTimeout);
+			config.setInitializationFailTimeout(-1);
+			registry.ifAvailable(config::setMetricRegistry);
+			replicas.put(config.getPoolName(), new HikariDataSource(config));
+		}
+
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas,
+				"least-loaded".equals(selection), stickyWindow, retryInterval);
+		registry.ifAvailable(routing::bindMetrics);
+
+		// connections obtained at the first statement, once the transaction is known to be read-only
+		return new LazyConnectionDataSourceProxy(routing) {
+			// inferred destroy method
+			public void close() {
+				routing.close();
+			}
+		};
+	}
+
+	// the adapter Spring Boot would create, read-only transactions do not fill the second-level and query caches
+	@Bean
+	public JpaVendorAdapter jpaVendorAdapter(JpaProperties properties, DataSource dataSource) {
+		HibernateJpaDialect dialect = new ReplicaJpaDialect();
+		HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+			@Override
+			public HibernateJpaDialect getJpaDialect() {
+				return dialect;
+			}
+		};
+		adapter.setShowSql(properties.isShowSql());
+		adapter.setDatabase(properties.determineDatabase(dataSource));
+		adapter.setDatabasePlatform(properties.getDatabasePlatform());
+		adapter.setGenerateDdl(properties.isGenerateDdl());
+		return adapter;
+	}
+
+}
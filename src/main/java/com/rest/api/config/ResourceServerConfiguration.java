@@ -1,5 +1,6 @@
 package com.rest.api.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -8,6 +9,7 @@ import org.springframework.security.oauth2.config.annotation.web.configuration.R
 import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
 import org.springframework.security.oauth2.provider.error.OAuth2AccessDeniedHandler;
 import org.springframework.security.oauth2.provider.error.OAuth2AuthenticationEntryPoint;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.access.AccessDeniedHandler;
 
@@ -18,6 +20,9 @@ import com.rest.api.web.handler.AuthenticationFailureHandler;
 @EnableResourceServer
 public class ResourceServerConfiguration extends ResourceServerConfigurerAdapter {
 	
+	@Autowired
+	private ResourceServerTokenServices tokenServices;
+	
     @Override
     public void configure(HttpSecurity http) throws Exception {
     	http.authorizeRequests()
@@ -29,6 +34,7 @@ public class ResourceServerConfiguration extends ResourceServerConfigurerAdapter
     @Override
     public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
     	resources
+        	.tokenServices(tokenServices)
         	.accessDeniedHandler(accessDeniedHandler())
         	.authenticationEntryPoint(authenticationEntryPoint());
     }
@@ -49,9 +55,9 @@ public class ResourceServerConfiguration extends ResourceServerConfigurerAdapter
     
     
     // JWT token
-    // if use security.oauth2.resource.jwt.key-uri
-    // or use security.oauth2.resource.jwt.key-value
-    // never set token provider, use default configuration
+    // security.oauth2.resource.jwt.key-uri or security.oauth2.resource.jwt.key-value
+    // read by JwtKeySet, verified tokens cached by CachingJwtTokenServices
+    // default configuration below verifies the signature on every request
     /*  
 	@Value("${security.oauth2.resource.jwt.key-value}")
 	private String keyValue;
@@ -89,30 +95,6 @@ public class ResourceServerConfiguration extends ResourceServerConfigurerAdapter
     
     // mandatory for external authorization server
     // with RemoteTokenServices resource server call authorization server on every authorization request (bad performance)
-    /*
-    
-    @Value("${oauth.check.url}")
-    private String checkUrl;
-	
-	@Value("${oauth.client.id}")
-    private String clientId;
-	
-	@Value("${oauth.client.secret}")
-    private String clientSecret;
-    
-    @Override
-    public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
-        resources.tokenServices(remoteTokenServices());
-    }
-    
-    @Bean
-    public RemoteTokenServices remoteTokenServices() {
-        final RemoteTokenServices tokenServices = new RemoteTokenServices();
-        tokenServices.setCheckTokenEndpointUrl(checkUrl);
-        tokenServices.setClientId(clientId);
-        tokenServices.setClientSecret(clientSecret);
-        return tokenServices;
-    }
-    */
+    // oauth.token-services=remote: RemoteTokenServicesConfig caches the results
 
 }
@@ -0,0 +1,25 @@
+package com.rest.api.config;
+
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.rest.api.web.VirtualThreads;
+
+// Virtual threads (car.virtual-threads.enabled=true, JDK 21 and later): Tomcat runs every request on a new
+// virtual thread instead of its worker pool, the car bulkheads run their tasks on virtual threads
+@Configuration
+@ConditionalOnProperty(name = "car.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+	// the acceptor and poller stay platform threads, server.tomcat.max-threads no longer applies
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadsCustomizer() {
+		return factory -> factory.addConnectorCustomizers(connector ->
+				((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-")));
+	}
+
+}
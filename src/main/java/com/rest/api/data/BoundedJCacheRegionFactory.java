@@ -0,0 +1,54 @@
+package com.rest.api.data;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.jcache.JCacheRegionFactory;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.springframework.core.io.DefaultResourceLoader;
+
+/**
+ * JCache region factory resolving <code>classpath:</code> configuration URIs.
+ * <p/>
+ * Regions missing from the configuration are rejected instead of being created unbounded.
+ * <p/>
+ * Each factory gets a cache manager of its own: the provider shares them by URI and class loader, and {@link #stop()}
+ * closes the manager, so session factories (e.g. test contexts) no longer close each other's.
+ */
+public class BoundedJCacheRegionFactory extends JCacheRegionFactory {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final AtomicInteger FACTORIES = new AtomicInteger();
+
+	@Override
+	protected CacheManager getCacheManager(Properties properties) {
+		String uri = getProp(properties, CONFIG_URI);
+		if (uri == null) {
+			return super.getCacheManager(properties);
+		}
+		CachingProvider cachingProvider = getCachingProvider(properties);
+		try {
+			URI config = new DefaultResourceLoader().getResource(uri).getURI();
+			// the fragment only tells the managers apart, the configuration is still read from the resource
+			URI managerUri = new URI(config.getScheme(), config.getSchemeSpecificPart(), "factory-" + FACTORIES.incrementAndGet());
+			return cachingProvider.getCacheManager(managerUri, cachingProvider.getDefaultClassLoader());
+		} catch (IOException | URISyntaxException e) {
+			throw new CacheException("Cache configuration not found: " + uri, e);
+		}
+	}
+
+	@Override
+	protected Cache<Object, Object> createCache(String regionName, Properties properties, CacheDataDescription metadata) {
+		throw new CacheException("Cache region not configured: " + regionName);
+	}
+
+}
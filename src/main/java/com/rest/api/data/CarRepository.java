@@ -1,26 +1,50 @@
 package com.rest.api.data;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.rest.api.model.Car;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long>, QuerydslPredicateExecutor<Car> {
+public interface CarRepository extends JpaRepository<Car, Long>, QuerydslPredicateExecutor<Car>, CarRepositoryCustom {
 
+	public static final String QUERY_CACHE_REGION = "car.queries";
+	
+	@QueryHints({
+		@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+		@QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)})
 	public Page<Car> findByVersion(int version, Pageable pageable);
 	
+	@QueryHints({
+		@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+		@QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)})
 	@Query(value = "select c from Car c where c.brand = ?1",
 			countQuery = "select count(c) from Car c where c.brand = ?1")
 	public Page<Car> findByBrand(String brand, Pageable pageable);
 	
+	// a scalar native count has no query spaces and would never be invalidated
+	@QueryHints(value = {
+		@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+		@QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)},
+		forCounting = false)
 	@Query(value = "SELECT * FROM CAR WHERE MODEL = ?1",
 			countQuery = "SELECT count(*) FROM CAR WHERE MODEL = ?1",
 			nativeQuery = true)
 	public Page<Car> findByModel(String model, Pageable pageable);
 	
+	// single DELETE, returns the affected row count (deleteById loads the car first)
+	@Transactional
+	@Modifying
+	@Query("delete from Car c where c.id = ?1")
+	public int deleteCarById(long id);
+	
 }
@@ -0,0 +1,39 @@
+package com.rest.api.data;
+
+import java.time.ZonedDateTime;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.rest.api.model.Car;
+import com.rest.api.model.CarPatch;
+
+public interface CarRepositoryCustom {
+
+	// fetch size + 1 rows to detect next page, no count query
+	public Slice<Car> findSlice(Predicate predicate, Pageable pageable);
+
+	// same as findSlice selecting only the given columns, rows are not attached to the persistence context
+	public Slice<Tuple> findSlice(Predicate predicate, Pageable pageable, Expression<?>... columns);
+
+	// selected columns of a single car, null if not found
+	public Tuple findColumnsById(long id, Expression<?>... columns);
+
+	// forward-only cursor in a read-only transaction, the persistence context is cleared every fetch size rows
+	public void forEach(Predicate predicate, Consumer<Car> action);
+
+	// single UPDATE of all the fields but insertDate, when the car also matches condition (null for none)
+	// returns the affected row count
+	public long update(long id, Car car, Predicate condition);
+
+	// single UPDATE of the supplied fields, condition as for update
+	public long patch(long id, CarPatch patch, ZonedDateTime updateDate, Predicate condition);
+
+	// single DELETE, condition as for update
+	public long delete(long id, Predicate condition);
+
+}
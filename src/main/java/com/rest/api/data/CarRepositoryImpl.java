@@ -0,0 +1,139 @@
+package com.rest.api.data;
+
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.CacheMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import com.rest.api.model.Car;
+import com.rest.api.model.CarPatch;
+import com.rest.api.model.QCar;
+
+// Custom fragment of CarRepository
+@Transactional(readOnly = true)
+public class CarRepositoryImpl implements CarRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${car.export.fetch-size:500}")
+	private int fetchSize;
+
+	private final EntityPath<Car> path = SimpleEntityPathResolver.INSTANCE.createPath(Car.class);
+
+	@Override
+	public Slice<Car> findSlice(Predicate predicate, Pageable pageable) {
+		Querydsl querydsl = querydsl();
+		return slice(querydsl, querydsl.createQuery(path).select(path).where(predicate), pageable);
+	}
+
+	@Override
+	public Slice<Tuple> findSlice(Predicate predicate, Pageable pageable, Expression<?>... columns) {
+		Querydsl querydsl = querydsl();
+		return slice(querydsl, querydsl.createQuery(path).select(columns).where(predicate), pageable);
+	}
+
+	@Override
+	public Tuple findColumnsById(long id, Expression<?>... columns) {
+		return querydsl().createQuery(path).select(columns).where(QCar.car.id.eq(id)).fetchOne();
+	}
+
+	private <T> Slice<T> slice(Querydsl querydsl, JPQLQuery<T> query, Pageable pageable) {
+		List<T> content = querydsl.applySorting(pageable.getSort(), query)
+				.offset(pageable.getOffset())
+				.limit(pageable.getPageSize() + 1)
+				.fetch();
+		
+		boolean hasNext = content.size() > pageable.getPageSize();
+		return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+	}
+
+	@Override
+	public void forEach(Predicate predicate, Consumer<Car> action) {
+		JPAQuery<Car> query = querydsl().createQuery(path).where(predicate).orderBy(QCar.car.id.asc()).select(path);
+		@SuppressWarnings("unchecked")
+		org.hibernate.query.Query<Car> cursor = query.createQuery().unwrap(org.hibernate.query.Query.class)
+				.setFetchSize(fetchSize)
+				.setReadOnly(true)
+				// keep the second-level cache for hot cars
+				.setCacheMode(CacheMode.IGNORE);
+
+		long rows = 0;
+		try (Stream<Car> cars = cursor.stream()) {
+			Iterator<Car> iterator = cars.iterator();
+			while (iterator.hasNext()) {
+				action.accept(iterator.next());
+				if (++rows % fetchSize == 0) {
+					entityManager.clear();
+				}
+			}
+		}
+	}
+
+	@Override
+	@Transactional
+	public long update(long id, Car values, Predicate condition) {
+		QCar car = QCar.car;
+		return new JPAUpdateClause(entityManager, car).where(car.id.eq(id), condition)
+				.set(car.brand, values.getBrand())
+				.set(car.model, values.getModel())
+				.set(car.version, values.getVersion())
+				.set(car.price, values.getPrice())
+				.set(car.updateDate, values.getUpdateDate())
+				.execute();
+	}
+
+	@Override
+	@Transactional
+	public long patch(long id, CarPatch patch, ZonedDateTime updateDate, Predicate condition) {
+		QCar car = QCar.car;
+		JPAUpdateClause update = new JPAUpdateClause(entityManager, car).where(car.id.eq(id), condition);
+		if (patch.getBrand() != null) {
+			update.set(car.brand, patch.getBrand().get());
+		}
+		if (patch.getModel() != null) {
+			update.set(car.model, patch.getModel().get());
+		}
+		if (patch.getVersion() != null) {
+			update.set(car.version, patch.getVersion().get());
+		}
+		if (patch.getPrice() != null) {
+			update.set(car.price, patch.getPrice().get());
+		}
+		return update.set(car.updateDate, updateDate).execute();
+	}
+
+	@Override
+	@Transactional
+	public long delete(long id, Predicate condition) {
+		QCar car = QCar.car;
+		return new JPADeleteClause(entityManager, car).where(car.id.eq(id), condition).execute();
+	}
+
+	private Querydsl querydsl() {
+		return new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.rest.api.data;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+/**
+ * Pooled-lo optimizer handing out ids without locking.
+ * <p/>
+ * Every sequence value <code>lo</code> reserves the block <code>[lo, lo + incrementSize)</code>,
+ * so the database sequence must be defined with <code>INCREMENT BY incrementSize</code>.
+ * Blocks are disjoint between nodes sharing the same sequence.
+ * Ids inside a block are taken with a CAS, only the refill (one round trip per block) is serialized.
+ */
+public class ConcurrentPooledLoOptimizer implements Optimizer {
+
+	private final Class<?> returnClass;
+	private final int incrementSize;
+	private final AtomicReference<Block> current = new AtomicReference<>();
+
+	public ConcurrentPooledLoOptimizer(Class<?> returnClass, int incrementSize) {
+		if (returnClass == null) {
+			throw new IllegalArgumentException("return class is required");
+		}
+		if (incrementSize < 1) {
+			throw new IllegalArgumentException("increment size must be positive: " + incrementSize);
+		}
+		this.returnClass = returnClass;
+		this.incrementSize = incrementSize;
+	}
+
+	@Override
+	public Serializable generate(AccessCallback callback) {
+		Block block = current.get();
+		while (true) {
+			if (block != null) {
+				long value = block.next.getAndIncrement();
+				if (value < block.upperLimit) {
+					return makeValue(value);
+				}
+			}
+			block = refill(block, callback);
+		}
+	}
+
+	private synchronized Block refill(Block exhausted, AccessCallback callback) {
+		Block block = current.get();
+		if (block != exhausted) {
+			// another thread already fetched a new block
+			return block;
+		}
+		long lo = callback.getNextValue().makeValue().longValue();
+		// handle sequences starting below 1
+		block = new Block(lo, Math.max(lo, 1), lo + incrementSize);
+		current.set(block);
+		return block;
+	}
+
+	private Serializable makeValue(long value) {
+		if (returnClass == Long.class || returnClass == long.class) {
+			return value;
+		}
+		return IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass).initialize(value).makeValue();
+	}
+
+	@Override
+	public IntegralDataTypeHolder getLastSourceValue() {
+		Block block = current.get();
+		return block == null ? null : IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(block.sourceValue);
+	}
+
+	@Override
+	public int getIncrementSize() {
+		return incrementSize;
+	}
+
+	@Override
+	public boolean applyIncrementSizeToSourceValues() {
+		return true;
+	}
+
+	private static final class Block {
+		private final long sourceValue;
+		private final AtomicLong next;
+		private final long upperLimit;
+
+		private Block(long sourceValue, long first, long upperLimit) {
+			this.sourceValue = sourceValue;
+			this.next = new AtomicLong(first);
+			this.upperLimit = upperLimit;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.rest.api.data;
+
+import java.sql.SQLException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Hibernate dialect for a {@link ReplicaRoutingDataSource}: read-only transactions may read from a lagging
+ * replica, they get the second-level and query caches (<code>CacheMode.GET</code>) but do not fill them.
+ * <p/>
+ * Transactions within {@link ReplicaRoutingDataSource#onPrimary(java.util.function.Supplier)} still fill them.
+ */
+public class ReplicaJpaDialect extends HibernateJpaDialect {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+			throws PersistenceException, SQLException, TransactionException {
+		Object transactionData = super.beginTransaction(entityManager, definition);
+		if (!definition.isReadOnly() || ReplicaRoutingDataSource.isOnPrimary()) {
+			return transactionData;
+		}
+		Session session = getSession(entityManager);
+		CacheMode previous = session.getCacheMode();
+		session.setCacheMode(CacheMode.GET);
+		return new ReadOnlyTransactionData(transactionData, session, previous);
+	}
+
+	@Override
+	public void cleanupTransaction(Object transactionData) {
+		if (transactionData instanceof ReadOnlyTransactionData) {
+			ReadOnlyTransactionData readOnly = (ReadOnlyTransactionData) transactionData;
+			// the session outlives the transaction with open-in-view
+			readOnly.session.setCacheMode(readOnly.previousCacheMode);
+			transactionData = readOnly.transactionData;
+		}
+		super.cleanupTransaction(transactionData);
+	}
+
+	private static final class ReadOnlyTransactionData {
+
+		private final Object transactionData;
+		private final Session session;
+		private final CacheMode previousCacheMode;
+
+		private ReadOnlyTransactionData(Object transactionData, Session session, CacheMode previousCacheMode) {
+			this.transactionData = transactionData;
+			this.session = session;
+			this.previousCacheMode = previousCacheMode;
+		}
+
+	}
+
+}
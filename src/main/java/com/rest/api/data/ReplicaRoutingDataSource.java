@@ -0,0 +1,279 @@
+package com.rest.api.data;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Connections of read-only transactions from replica data sources, the others from the primary.
+ * <p/>
+ * The transaction must be known to be read-only when the connection is obtained: wrap in a
+ * {@link LazyConnectionDataSourceProxy}, connecting at the first statement. Replicas are tried in turn,
+ * round-robin or the least loaded first (active and awaited connections of their Hikari pool). A replica
+ * failing to give a connection is skipped <code>retryInterval</code> ms, then tried again by a single read.
+ * Reads fall back to the primary when no replica is left.
+ * <p/>
+ * For <code>stickyWindow</code> ms after a client (authentication name) commits a read-write transaction,
+ * its reads go to the primary so that it sees its writes whatever the replication lag.
+ * <p/>
+ * Results shared between clients must not come from a lagging replica: caches load through
+ * {@link #onPrimary(Supplier)}, and do not keep what was read in a transaction for which {@link #isReplicaRead()}.
+ * <p/>
+ * Metrics: "datasource.reads" counter by target (primary or the replica name) and reason (replica, sticky,
+ * shared, fallback).
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+	private static final String PRIMARY = "primary";
+	// bound to transactions having read from a replica
+	private static final Object REPLICA_READ = new Object();
+	private static final ThreadLocal<Boolean> SHARED_READ = new ThreadLocal<>();
+
+	private final DataSource primary;
+	private final List<Replica> replicas = new ArrayList<>();
+	private final boolean leastLoaded;
+	private final long stickyWindow;
+	private final long retryInterval;
+	// clients having committed a write within the sticky window
+	private final Cache<String, Boolean> writers;
+	private final AtomicInteger next = new AtomicInteger();
+	// no-op until bound
+	private MeterRegistry registry = new CompositeMeterRegistry();
+
+	public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, boolean leastLoaded, long stickyWindow, long retryInterval) {
+		this.primary = primary;
+		replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+		this.leastLoaded = leastLoaded;
+		this.stickyWindow = stickyWindow;
+		this.retryInterval = retryInterval;
+		writers = Caffeine.newBuilder()
+				.maximumSize(100000)
+				.expireAfterWrite(stickyWindow, TimeUnit.MILLISECONDS)
+				.build();
+	}
+
+	public void bindMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Runs an action whose read-only transactions read from the primary, for results shared between clients.
+	 * A read-only transaction already connected to a replica stays on it.
+	 */
+	public static <T> T onPrimary(Supplier<T> action) {
+		if (SHARED_READ.get() != null) {
+			return action.get();
+		}
+		SHARED_READ.set(Boolean.TRUE);
+		try {
+			return action.get();
+		} finally {
+			SHARED_READ.remove();
+		}
+	}
+
+	public static boolean isOnPrimary() {
+		return SHARED_READ.get() != null;
+	}
+
+	// true when the current transaction got its connection from a replica
+	public static boolean isReplicaRead() {
+		return TransactionSynchronizationManager.hasResource(REPLICA_READ);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			writing();
+			return primary.getConnection();
+		}
+
+		if (isOnPrimary()) {
+			return read(primary, PRIMARY, "shared");
+		}
+		String client = client();
+		if (client != null && writers.getIfPresent(client) != null) {
+			return read(primary, PRIMARY, "sticky");
+		}
+		for (Replica replica : candidates()) {
+			try {
+				Connection connection = read(replica.dataSource, replica.name, "replica");
+				replica.up();
+				replicaRead();
+				return connection;
+			} catch (SQLException | RuntimeException e) {
+				replica.downUntil.set(System.currentTimeMillis() + retryInterval);
+				LOG.warn("Replica {} skipped for {} ms: {}", replica.name, retryInterval, e.toString());
+			}
+		}
+		return read(primary, PRIMARY, "fallback");
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Connections with the credentials of the data sources only");
+	}
+
+	// the pools created for this data source
+	@Override
+	public void close() {
+		if (primary instanceof Closeable) {
+			try {
+				((Closeable) primary).close();
+			} catch (Exception e) {
+				LOG.warn("Primary not closed", e);
+			}
+		}
+		for (Replica replica : replicas) {
+			if (replica.dataSource instanceof Closeable) {
+				try {
+					((Closeable) replica.dataSource).close();
+				} catch (Exception e) {
+					LOG.warn("Replica {} not closed", replica.name, e);
+				}
+			}
+		}
+	}
+
+	private Connection read(DataSource dataSource, String target, String reason) throws SQLException {
+		Connection connection = dataSource.getConnection();
+		registry.counter("datasource.reads", "target", target, "reason", reason).increment();
+		return connection;
+	}
+
+	// the client becomes sticky when the transaction commits
+	private void writing() {
+		String client = client();
+		if (client == null || stickyWindow <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				writers.put(client, Boolean.TRUE);
+			}
+		});
+	}
+
+	// until the transaction completes, unbound while it is suspended
+	private static void replicaRead() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive() || isReplicaRead()) {
+			return;
+		}
+		TransactionSynchronizationManager.bindResource(REPLICA_READ, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void suspend() {
+				TransactionSynchronizationManager.unbindResource(REPLICA_READ);
+			}
+
+			@Override
+			public void resume() {
+				TransactionSynchronizationManager.bindResource(REPLICA_READ, Boolean.TRUE);
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_READ);
+			}
+		});
+	}
+
+	// replicas not skipped, from the next in turn, the least loaded moved first
+	private List<Replica> candidates() {
+		long now = System.currentTimeMillis();
+		int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+		List<Replica> candidates = new ArrayList<>(replicas.size());
+		for (int i = 0; i < replicas.size(); i++) {
+			Replica replica = replicas.get((start + i) % replicas.size());
+			if (replica.isAvailable(now, retryInterval)) {
+				candidates.add(replica);
+			}
+		}
+
+		if (leastLoaded && candidates.size() > 1) {
+			int best = 0;
+			int bestLoad = Integer.MAX_VALUE;
+			for (int i = 0; i < candidates.size(); i++) {
+				int load = candidates.get(i).load();
+				if (load < bestLoad) {
+					best = i;
+					bestLoad = load;
+				}
+			}
+			candidates.add(0, candidates.remove(best));
+		}
+		return candidates;
+	}
+
+	private static String client() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication == null ? null : authentication.getName();
+	}
+
+	private static final class Replica {
+
+		private final String name;
+		private final DataSource dataSource;
+		// 0 when up
+		private final AtomicLong downUntil = new AtomicLong();
+
+		private Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+
+		// once skipped, the read claiming the end of the interval tries it again
+		private boolean isAvailable(long now, long retryInterval) {
+			long until = downUntil.get();
+			return until == 0 || (now >= until && downUntil.compareAndSet(until, now + retryInterval));
+		}
+
+		private void up() {
+			if (downUntil.get() != 0) {
+				downUntil.set(0);
+			}
+		}
+
+		// 0 unless a started Hikari pool
+		private int load() {
+			if (dataSource instanceof HikariDataSource) {
+				HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+				if (pool != null) {
+					return pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+				}
+			}
+			return 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,10 @@
+package com.rest.api.exception;
+
+public class BulkheadFullException extends CodeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BulkheadFullException() {
+		super(5, "bulkhead.full");
+	}
+}
@@ -0,0 +1,10 @@
+package com.rest.api.exception;
+
+public class CarModifiedException extends CodeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CarModifiedException() {
+		super(4, "car.modified");
+	}
+}
@@ -0,0 +1,10 @@
+package com.rest.api.exception;
+
+public class InvalidCursorException extends CodeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidCursorException() {
+		super(2, "cursor.invalid");
+	}
+}
@@ -0,0 +1,10 @@
+package com.rest.api.exception;
+
+public class InvalidFieldsException extends CodeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidFieldsException() {
+		super(3, "fields.invalid");
+	}
+}
@@ -3,23 +3,40 @@ package com.rest.api.model;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.SequenceGenerator;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.PositiveOrZero;
 import javax.validation.constraints.Size;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@JsonSerialize(using = CarJson.Serializer.class)
+@JsonDeserialize(using = CarJson.Deserializer.class)
 public class Car {
 	
 	@Id
-	@SequenceGenerator(name = "carIdSeq", sequenceName = "CAR_ID_SEQ", allocationSize = 1)
+	// CAR_ID_SEQ must be defined with INCREMENT BY = increment_size
+	@GenericGenerator(name = "carIdSeq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "CAR_ID_SEQ"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+			@Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "com.rest.api.data.ConcurrentPooledLoOptimizer")
+	})
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carIdSeq")
 	private long id;
 	
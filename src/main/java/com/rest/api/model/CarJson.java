@@ -0,0 +1,109 @@
+package com.rest.api.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.NumberDeserializers;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Streaming JSON of a {@link Car}: <code>{"id":1,"brand":"BMW","model":"320d","version":0,"price":40000.00}</code>.
+ * <p/>
+ * Same document as the bean serialization it replaces, field names are encoded once. Null fields are written,
+ * whatever the inclusion setting. Dates are not part of the document and ignored when read, unknown fields
+ * follow <code>FAIL_ON_UNKNOWN_PROPERTIES</code>.
+ */
+public final class CarJson {
+
+	private static final SerializedString ID = new SerializedString("id");
+	private static final SerializedString BRAND = new SerializedString("brand");
+	private static final SerializedString MODEL = new SerializedString("model");
+	private static final SerializedString VERSION = new SerializedString("version");
+	private static final SerializedString PRICE = new SerializedString("price");
+
+	private CarJson() {
+	}
+
+	public static class Serializer extends StdSerializer<Car> {
+
+		private static final long serialVersionUID = 1L;
+
+		public Serializer() {
+			super(Car.class);
+		}
+
+		@Override
+		public void serialize(Car car, JsonGenerator generator, SerializerProvider provider) throws IOException {
+			generator.writeStartObject(car);
+			generator.writeFieldName(ID);
+			generator.writeNumber(car.getId());
+			generator.writeFieldName(BRAND);
+			generator.writeString(car.getBrand());
+			generator.writeFieldName(MODEL);
+			generator.writeString(car.getModel());
+			generator.writeFieldName(VERSION);
+			generator.writeNumber(car.getVersion());
+			generator.writeFieldName(PRICE);
+			generator.writeNumber(car.getPrice());
+			generator.writeEndObject();
+		}
+
+	}
+
+	public static class Deserializer extends StdDeserializer<Car> {
+
+		private static final long serialVersionUID = 1L;
+
+		public Deserializer() {
+			super(Car.class);
+		}
+
+		@Override
+		public Car deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+			JsonToken token = parser.getCurrentToken();
+			if (token == JsonToken.START_OBJECT) {
+				token = parser.nextToken();
+			} else if (token != JsonToken.FIELD_NAME) {
+				return (Car) context.handleUnexpectedToken(Car.class, parser);
+			}
+
+			Car car = new Car();
+			for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+				String name = parser.getCurrentName();
+				token = parser.nextToken();
+				switch (name) {
+				case "id":
+					car.setId(_parseLongPrimitive(parser, context));
+					break;
+				case "brand":
+					car.setBrand(token == JsonToken.VALUE_NULL ? null : _parseString(parser, context));
+					break;
+				case "model":
+					car.setModel(token == JsonToken.VALUE_NULL ? null : _parseString(parser, context));
+					break;
+				case "version":
+					car.setVersion(_parseIntPrimitive(parser, context));
+					break;
+				case "price":
+					car.setPrice(token == JsonToken.VALUE_NULL ? null : NumberDeserializers.BigDecimalDeserializer.instance.deserialize(parser, context));
+					break;
+				case "insertDate":
+				case "updateDate":
+					parser.skipChildren();
+					break;
+				default:
+					handleUnknownProperty(parser, context, car, name);
+				}
+			}
+			return car;
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.rest.api.model;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+
+/**
+ * JSON Merge Patch (RFC 7396) of a {@link Car}.
+ * <p/>
+ * A field is <code>null</code> when absent from the patch and {@link Optional#empty()} when set to null,
+ * which the {@link Car} constraints do not allow. Only supplied fields are validated and updated.
+ */
+public class CarPatch {
+
+	private Optional<@NotNull @Size(min = 0, max = 10) String> brand;
+
+	private Optional<@NotNull @Size(min = 0, max = 10) String> model;
+
+	private Optional<@NotNull @PositiveOrZero Integer> version;
+
+	private Optional<@NotNull @PositiveOrZero @Digits(integer = 10, fraction = 2) BigDecimal> price;
+
+	public Optional<String> getBrand() {
+		return brand;
+	}
+	public void setBrand(Optional<String> brand) {
+		this.brand = brand;
+	}
+	public Optional<String> getModel() {
+		return model;
+	}
+	public void setModel(Optional<String> model) {
+		this.model = model;
+	}
+	public Optional<Integer> getVersion() {
+		return version;
+	}
+	public void setVersion(Optional<Integer> version) {
+		this.version = version;
+	}
+	public Optional<BigDecimal> getPrice() {
+		return price;
+	}
+	public void setPrice(Optional<BigDecimal> price) {
+		this.price = price;
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.rest.api.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rest.api.model.error.RowError;
+
+/**
+ * Result of a bulk import, only the first <code>maxErrors</code> rejected rows are detailed.
+ */
+public class ImportReport {
+
+	private long imported;
+	private long rejected;
+	private List<RowError> errors = new ArrayList<>();
+	private final int maxErrors;
+	
+	public ImportReport(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+	
+	public void addImported(int count) {
+		imported += count;
+	}
+	
+	public void reject(RowError error) {
+		rejected++;
+		if(errors.size() < maxErrors)
+			errors.add(error);
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public List<RowError> getErrors() {
+		return errors;
+	}
+	
+}
@@ -0,0 +1,25 @@
+package com.rest.api.model.error;
+
+public class RowError extends ValidationError {
+
+	// row not parsed
+	public static final int UNREADABLE = 101;
+	// valid row in a chunk that could not be inserted
+	public static final int NOT_INSERTED = 102;
+
+	private long line;
+	
+	public RowError(long line, int code, String message) {
+		super(code, message);
+		this.line = line;
+	}
+
+	public long getLine() {
+		return line;
+	}
+
+	public void setLine(long line) {
+		this.line = line;
+	}
+	
+}
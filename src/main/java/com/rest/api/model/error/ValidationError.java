@@ -5,6 +5,8 @@ import java.util.List;
 
 public class ValidationError extends Error {
 
+	public static final int CODE = 100;
+
 	private List<FieldError> errors = new ArrayList<FieldError>();
 	
 	public ValidationError(int code, String message) {
@@ -0,0 +1,130 @@
+package com.rest.api.security;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Token services of the resource server, JWT access tokens verified with the {@link JwtKeySet}.
+ * <p/>
+ * Verified tokens are cached by SHA-256 digest until their <code>exp</code>, at most
+ * <code>jwt.cache.max-ttl</code> milliseconds and <code>jwt.cache.max-entries</code> tokens:
+ * a known token skips the signature verification and the claims parsing.
+ */
+@Component
+@ConditionalOnProperty(name = "oauth.token-services", havingValue = "jwt", matchIfMissing = true)
+public class CachingJwtTokenServices implements ResourceServerTokenServices {
+
+	private final JwtKeySet keySet;
+	private final AccessTokenConverter tokenConverter = new DefaultAccessTokenConverter();
+	private final long maxTtl;
+	private final Cache<String, VerifiedToken> tokens;
+
+	@Autowired
+	public CachingJwtTokenServices(JwtKeySet keySet,
+			@Value("${jwt.cache.max-entries:10000}") long maxEntries,
+			@Value("${jwt.cache.max-ttl:600000}") long maxTtl) {
+		this.keySet = keySet;
+		this.maxTtl = maxTtl;
+		tokens = Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfter(new Expiry<String, VerifiedToken>() {
+					@Override
+					public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+						return token.ttl;
+					}
+
+					@Override
+					public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+						return token.ttl;
+					}
+
+					@Override
+					public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+	}
+
+	@Autowired(required = false)
+	public void bindMetrics(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, tokens, "tokens");
+	}
+
+	@Override
+	public OAuth2Authentication loadAuthentication(String accessToken) {
+		String digest = TokenDigest.of(accessToken);
+		VerifiedToken verified = tokens.getIfPresent(digest);
+		if (verified == null || verified.revision != keySet.getRevision()) {
+			verified = verify(accessToken);
+			tokens.put(digest, verified);
+		}
+		// the authentication manager sets the request details on the returned instance
+		return new PermittedAuthentication(verified.authentication);
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String accessToken) {
+		return tokenConverter.extractAccessToken(accessToken, claims(accessToken));
+	}
+
+	public void invalidateAll() {
+		tokens.invalidateAll();
+	}
+
+	private VerifiedToken verify(String accessToken) {
+		long revision = keySet.getRevision();
+		Map<String, Object> claims = claims(accessToken);
+		OAuth2AccessToken token = tokenConverter.extractAccessToken(accessToken, claims);
+		if (token.isExpired()) {
+			throw new InvalidTokenException("Access token expired");
+		}
+		long ttl = token.getExpiration() == null ? maxTtl
+				: Math.min(maxTtl, token.getExpiration().getTime() - System.currentTimeMillis());
+		return new VerifiedToken(new PermittedAuthentication(tokenConverter.extractAuthentication(claims)), revision, TimeUnit.MILLISECONDS.toNanos(ttl));
+	}
+
+	private Map<String, Object> claims(String accessToken) {
+		Map<String, Object> claims = keySet.verify(accessToken);
+		// the converter expects a Long
+		Object exp = claims.get(AccessTokenConverter.EXP);
+		if (exp instanceof Number) {
+			claims.put(AccessTokenConverter.EXP, ((Number) exp).longValue());
+		}
+		return claims;
+	}
+
+	private static final class VerifiedToken {
+
+		private final PermittedAuthentication authentication;
+		private final long revision;
+		private final long ttl;
+
+		private VerifiedToken(PermittedAuthentication authentication, long revision, long ttl) {
+			this.authentication = authentication;
+			this.revision = revision;
+			this.ttl = ttl;
+		}
+
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.rest.api.security;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Caching decorator of token services calling the authorization server, e.g. check_token introspection
+ * of opaque tokens.
+ * <p/>
+ * Authentications are cached by SHA-256 digest of the token until its <code>exp</code> when known
+ * ({@link ExpiryAccessTokenConverter}), at most <code>maxTtl</code>: the delay for a revoked token to be refused.
+ * Invalid tokens are cached <code>negativeTtl</code>, failed calls are not cached. Concurrent requests with
+ * the same token wait for a single call.
+ * <p/>
+ * Metrics: "cache.*" with name=introspection, "oauth.introspection" timer by outcome (active, invalid, error)
+ * and "oauth.introspection.coalesced" counter of the requests served by another request's call.
+ */
+public class CachingTokenServices implements ResourceServerTokenServices {
+
+	private final ResourceServerTokenServices delegate;
+	private final long maxTtl;
+	private final long negativeTtl;
+	private final Cache<String, Introspection> introspections;
+	private final ConcurrentMap<String, CompletableFuture<Introspection>> inFlight = new ConcurrentHashMap<>();
+	// no-op until bound
+	private MeterRegistry registry = new CompositeMeterRegistry();
+
+	public CachingTokenServices(ResourceServerTokenServices delegate, long maxEntries, long maxTtl, long negativeTtl) {
+		this.delegate = delegate;
+		this.maxTtl = maxTtl;
+		this.negativeTtl = negativeTtl;
+		introspections = Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfter(new Expiry<String, Introspection>() {
+					@Override
+					public long expireAfterCreate(String digest, Introspection introspection, long currentTime) {
+						return introspection.ttl;
+					}
+
+					@Override
+					public long expireAfterUpdate(String digest, Introspection introspection, long currentTime, long currentDuration) {
+						return introspection.ttl;
+					}
+
+					@Override
+					public long expireAfterRead(String digest, Introspection introspection, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+	}
+
+	public void bindMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		CaffeineCacheMetrics.monitor(registry, introspections, "introspection");
+	}
+
+	@Override
+	public OAuth2Authentication loadAuthentication(String accessToken) {
+		String digest = TokenDigest.of(accessToken);
+		Introspection introspection = introspections.getIfPresent(digest);
+		if (introspection == null) {
+			introspection = introspectOnce(digest, accessToken);
+		}
+		if (introspection.authentication == null) {
+			throw new InvalidTokenException(introspection.error);
+		}
+		// the authentication manager sets the request details on the returned instance
+		return new PermittedAuthentication(introspection.authentication);
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String accessToken) {
+		return delegate.readAccessToken(accessToken);
+	}
+
+	public void invalidateAll() {
+		introspections.invalidateAll();
+	}
+
+	// the first caller introspects, the concurrent ones wait for its result
+	private Introspection introspectOnce(String digest, String accessToken) {
+		CompletableFuture<Introspection> call = new CompletableFuture<>();
+		CompletableFuture<Introspection> leader = inFlight.putIfAbsent(digest, call);
+		if (leader != null) {
+			registry.counter("oauth.introspection.coalesced").increment();
+			try {
+				return leader.join();
+			} catch (CompletionException e) {
+				throw (RuntimeException) e.getCause();
+			}
+		}
+		try {
+			// cached by a call completed since the miss
+			Introspection introspection = introspections.getIfPresent(digest);
+			if (introspection == null) {
+				introspection = introspect(accessToken);
+				introspections.put(digest, introspection);
+			}
+			call.complete(introspection);
+			return introspection;
+		} catch (RuntimeException e) {
+			call.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(digest, call);
+		}
+	}
+
+	private Introspection introspect(String accessToken) {
+		long start = System.nanoTime();
+		String outcome = "error";
+		try {
+			OAuth2Authentication authentication = delegate.loadAuthentication(accessToken);
+			outcome = "active";
+			Long exp = ExpiryAccessTokenConverter.getExpiration(authentication);
+			long ttl = exp == null ? maxTtl : Math.max(0, Math.min(maxTtl, exp * 1000 - System.currentTimeMillis()));
+			return new Introspection(new PermittedAuthentication(authentication), null, ttl);
+		} catch (InvalidTokenException e) {
+			outcome = "invalid";
+			return new Introspection(null, e.getMessage(), negativeTtl);
+		} catch (AuthenticationException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw new AuthenticationServiceException("Token introspection failed", e);
+		} finally {
+			registry.timer("oauth.introspection", "outcome", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static final class Introspection {
+
+		private final PermittedAuthentication authentication;
+		private final String error;
+		private final long ttl;
+
+		private Introspection(PermittedAuthentication authentication, String error, long ttl) {
+			this.authentication = authentication;
+			this.error = error;
+			this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+		}
+
+	}
+
+}
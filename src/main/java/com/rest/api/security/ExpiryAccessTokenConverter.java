@@ -0,0 +1,37 @@
+package com.rest.api.security;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+
+/**
+ * Keeps the <code>exp</code> of a check_token response in the extensions of the OAuth2Request,
+ * the remote token services hand over nothing but the authentication.
+ */
+public class ExpiryAccessTokenConverter extends DefaultAccessTokenConverter {
+
+	@Override
+	public OAuth2Authentication extractAuthentication(Map<String, ?> map) {
+		OAuth2Authentication authentication = super.extractAuthentication(map);
+		Object exp = map.get(EXP);
+		if (!(exp instanceof Number)) {
+			return authentication;
+		}
+		OAuth2Request request = authentication.getOAuth2Request();
+		Map<String, Serializable> extensions = new HashMap<>(request.getExtensions());
+		extensions.put(EXP, ((Number) exp).longValue());
+		OAuth2Request withExpiration = new OAuth2Request(request.getRequestParameters(), request.getClientId(), request.getAuthorities(),
+				request.isApproved(), request.getScope(), request.getResourceIds(), request.getRedirectUri(), request.getResponseTypes(), extensions);
+		return new OAuth2Authentication(withExpiration, authentication.getUserAuthentication());
+	}
+
+	// epoch seconds, null if unknown
+	public static Long getExpiration(OAuth2Authentication authentication) {
+		return (Long) authentication.getOAuth2Request().getExtensions().get(EXP);
+	}
+
+}
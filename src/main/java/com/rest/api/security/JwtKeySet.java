@@ -0,0 +1,234 @@
+package com.rest.api.security;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.jwt.Jwt;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.MacSigner;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Verification keys of the JWT access tokens, held locally.
+ * <p/>
+ * The key is <code>security.oauth2.resource.jwt.key-value</code>, or the keys are fetched from
+ * <code>security.oauth2.resource.jwt.key-uri</code>: the token_key endpoint of the authorization server
+ * (one key) or a JWK set (RSA keys by <code>kid</code>). Fetched keys are refreshed in background every
+ * <code>jwt.key-set.refresh</code> ms, and on demand when a token is signed by an unknown key at most
+ * every <code>jwt.key-set.min-refresh</code> ms. A key no longer published keeps verifying until the next
+ * refresh, so tokens signed just before a rotation stay valid.
+ */
+@Component
+@ConditionalOnProperty(name = "oauth.token-services", havingValue = "jwt", matchIfMissing = true)
+public class JwtKeySet {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JwtKeySet.class);
+	private static final TypeReference<Map<String, Object>> CLAIMS = new TypeReference<Map<String, Object>>() {};
+
+	private final String keyUri;
+	private final long refresh;
+	private final long minRefresh;
+	private final RestTemplate restTemplate;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private ScheduledExecutorService scheduler;
+
+	private volatile Keys keys = new Keys(Collections.emptyMap(), Collections.emptyMap());
+	// incremented when a key stops verifying
+	private volatile long revision;
+	private volatile long lastRefresh;
+
+	@Autowired
+	public JwtKeySet(@Value("${security.oauth2.resource.jwt.key-uri:}") String keyUri,
+			@Value("${security.oauth2.resource.jwt.key-value:}") String keyValue,
+			@Value("${jwt.key-set.refresh:300000}") long refresh,
+			@Value("${jwt.key-set.min-refresh:30000}") long minRefresh) {
+		// a fixed key wins, as with the default token services
+		this.keyUri = keyValue.isEmpty() ? keyUri : "";
+		this.refresh = refresh;
+		this.minRefresh = minRefresh;
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(5000);
+		requestFactory.setReadTimeout(5000);
+		this.restTemplate = new RestTemplate(requestFactory);
+		if (!keyValue.isEmpty()) {
+			keys = new Keys(Collections.singletonMap(keyValue, verifier(keyValue)), Collections.emptyMap());
+		}
+	}
+
+	@PostConstruct
+	public void start() {
+		if (keyUri.isEmpty()) {
+			return;
+		}
+		refreshQuietly();
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "jwt-key-set");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::refreshQuietly, refresh, refresh, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * Claims of a token signed by one of the keys.
+	 *
+	 * @throws InvalidTokenException if the token is malformed or no key verifies it
+	 */
+	public Map<String, Object> verify(String token) {
+		Jwt jwt;
+		String kid;
+		try {
+			jwt = JwtHelper.decode(token);
+			kid = JwtHelper.headers(token).get("kid");
+		} catch (RuntimeException e) {
+			throw new InvalidTokenException("Cannot convert access token to JSON", e);
+		}
+		if (!keys.verify(jwt, kid) && !(refreshOnDemand() && keys.verify(jwt, kid))) {
+			throw new InvalidTokenException("Cannot verify access token signature");
+		}
+		try {
+			return objectMapper.readValue(jwt.getClaims(), CLAIMS);
+		} catch (IOException e) {
+			throw new InvalidTokenException("Cannot convert access token to JSON", e);
+		}
+	}
+
+	// tokens verified at an older revision may be signed by a key no longer trusted
+	public long getRevision() {
+		return revision;
+	}
+
+	/**
+	 * Fetches the published keys, the current ones no longer published are kept until the next refresh.
+	 */
+	public synchronized void refresh() throws IOException {
+		lastRefresh = System.currentTimeMillis();
+		Map<String, SignatureVerifier> published = parse(fetchKeys());
+		Keys old = keys;
+		Map<String, SignatureVerifier> retired = new LinkedHashMap<>();
+		old.current.forEach((id, verifier) -> {
+			if (!published.containsKey(id)) {
+				retired.put(id, verifier);
+			}
+		});
+		keys = new Keys(published, retired);
+		if (old.retired.keySet().stream().anyMatch(id -> !published.containsKey(id))) {
+			revision++;
+		}
+		if (!retired.isEmpty()) {
+			LOG.info("Verification keys {} no longer published by {}", retired.keySet(), keyUri);
+		}
+	}
+
+	protected String fetchKeys() {
+		return restTemplate.getForObject(keyUri, String.class);
+	}
+
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Cannot refresh verification keys from {}: {}", keyUri, e.toString());
+		}
+	}
+
+	// a token signed by an unknown key may follow a rotation
+	private synchronized boolean refreshOnDemand() {
+		if (keyUri.isEmpty() || System.currentTimeMillis() - lastRefresh < minRefresh) {
+			return false;
+		}
+		refreshQuietly();
+		return true;
+	}
+
+	private Map<String, SignatureVerifier> parse(String body) throws IOException {
+		JsonNode root = objectMapper.readTree(body);
+		Map<String, SignatureVerifier> published = new LinkedHashMap<>();
+		if (root.has("keys")) {
+			for (JsonNode jwk : root.get("keys")) {
+				if ("RSA".equals(jwk.path("kty").asText()) && !"enc".equals(jwk.path("use").asText())) {
+					String n = jwk.path("n").asText();
+					published.put(jwk.path("kid").asText(n), new RsaVerifier(unsigned(n), unsigned(jwk.path("e").asText())));
+				}
+			}
+		} else if (root.hasNonNull("value")) {
+			String value = root.get("value").asText();
+			published.put(value, verifier(value));
+		}
+		if (published.isEmpty()) {
+			throw new IOException("No verification key in " + body);
+		}
+		return published;
+	}
+
+	private static SignatureVerifier verifier(String value) {
+		return value.startsWith("-----BEGIN") ? new RsaVerifier(value) : new MacSigner(value);
+	}
+
+	private static BigInteger unsigned(String base64Url) {
+		return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+	}
+
+	// keys by kid, or by key material when the issuer does not name them
+	private static final class Keys {
+
+		private final Map<String, SignatureVerifier> current;
+		private final Map<String, SignatureVerifier> retired;
+
+		private Keys(Map<String, SignatureVerifier> current, Map<String, SignatureVerifier> retired) {
+			this.current = current;
+			this.retired = retired;
+		}
+
+		private boolean verify(Jwt jwt, String kid) {
+			SignatureVerifier named = kid == null ? null : current.getOrDefault(kid, retired.get(kid));
+			if (named != null) {
+				return verify(jwt, named);
+			}
+			return current.values().stream().anyMatch(verifier -> verify(jwt, verifier))
+					|| retired.values().stream().anyMatch(verifier -> verify(jwt, verifier));
+		}
+
+		private static boolean verify(Jwt jwt, SignatureVerifier verifier) {
+			try {
+				jwt.verifySignature(verifier);
+				return true;
+			} catch (RuntimeException e) {
+				return false;
+			}
+		}
+
+	}
+
+}
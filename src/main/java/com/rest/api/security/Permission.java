@@ -0,0 +1,53 @@
+package com.rest.api.security;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Authorities known to the method guards, one bit each in a permission mask.
+ */
+public enum Permission {
+
+	CAR_READ, CAR_CREATE, CAR_UPDATE, CAR_DELETE;
+
+	private static final Map<String, Permission> BY_AUTHORITY = new HashMap<>();
+
+	static {
+		for (Permission permission : values()) {
+			BY_AUTHORITY.put(permission.name(), permission);
+		}
+	}
+
+	private final int mask = 1 << ordinal();
+
+	public int mask() {
+		return mask;
+	}
+
+	// null if not a known permission
+	public static Permission fromAuthority(String authority) {
+		return BY_AUTHORITY.get(authority);
+	}
+
+	public static int mask(Collection<? extends GrantedAuthority> authorities) {
+		int mask = 0;
+		for (GrantedAuthority authority : authorities) {
+			Permission permission = BY_AUTHORITY.get(authority.getAuthority());
+			if (permission != null) {
+				mask |= permission.mask;
+			}
+		}
+		return mask;
+	}
+
+	// resolved once for the authentications of the token services
+	public static int mask(Authentication authentication) {
+		return authentication instanceof PermittedAuthentication ? ((PermittedAuthentication) authentication).getPermissions()
+				: mask(authentication.getAuthorities());
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.rest.api.security;
+
+import org.springframework.security.access.ConfigAttribute;
+
+/**
+ * Method guard requiring a {@link Permission}, decided by the {@link PermissionVoter}.
+ */
+public class PermissionAttribute implements ConfigAttribute {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Permission permission;
+
+	public PermissionAttribute(Permission permission) {
+		this.permission = permission;
+	}
+
+	public Permission getPermission() {
+		return permission;
+	}
+
+	// not a plain string attribute, only the PermissionVoter supports it
+	@Override
+	public String getAttribute() {
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "hasAuthority('" + permission + "')";
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.rest.api.security;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.method.AbstractFallbackMethodSecurityMetadataSource;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.prepost.PreFilter;
+
+/**
+ * Precompiles <code>@PreAuthorize("hasAuthority('...')")</code> of a known {@link Permission} to a
+ * {@link PermissionAttribute}, parsed once per method instead of a SpEL evaluation per call.
+ * Any other expression, or a method with other pre/post annotations, is left to the expression based source.
+ */
+public class PermissionMetadataSource extends AbstractFallbackMethodSecurityMetadataSource {
+
+	private static final Pattern HAS_AUTHORITY = Pattern.compile("hasAuthority\\('(\\w+)'\\)");
+
+	@Override
+	protected Collection<ConfigAttribute> findAttributes(Method method, Class<?> targetClass) {
+		return attributes(method);
+	}
+
+	@Override
+	protected Collection<ConfigAttribute> findAttributes(Class<?> clazz) {
+		return attributes(clazz);
+	}
+
+	@Override
+	public Collection<ConfigAttribute> getAllConfigAttributes() {
+		return null;
+	}
+
+	private static Collection<ConfigAttribute> attributes(AnnotatedElement element) {
+		PreAuthorize preAuthorize = find(element, PreAuthorize.class);
+		if (preAuthorize == null || find(element, PostAuthorize.class) != null
+				|| find(element, PreFilter.class) != null || find(element, PostFilter.class) != null) {
+			return null;
+		}
+		Matcher matcher = HAS_AUTHORITY.matcher(preAuthorize.value().trim());
+		Permission permission = matcher.matches() ? Permission.fromAuthority(matcher.group(1)) : null;
+		return permission == null ? null : Collections.singletonList(new PermissionAttribute(permission));
+	}
+
+	private static <A extends Annotation> A find(AnnotatedElement element, Class<A> annotationType) {
+		return element instanceof Method ? AnnotationUtils.findAnnotation((Method) element, annotationType)
+				: AnnotationUtils.findAnnotation((Class<?>) element, annotationType);
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.rest.api.security;
+
+import java.util.Collection;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Grants a {@link PermissionAttribute} with a bit test of the authentication's permission mask.
+ */
+public class PermissionVoter implements AccessDecisionVoter<MethodInvocation> {
+
+	@Override
+	public boolean supports(ConfigAttribute attribute) {
+		return attribute instanceof PermissionAttribute;
+	}
+
+	@Override
+	public boolean supports(Class<?> clazz) {
+		return MethodInvocation.class.isAssignableFrom(clazz);
+	}
+
+	@Override
+	public int vote(Authentication authentication, MethodInvocation invocation, Collection<ConfigAttribute> attributes) {
+		for (ConfigAttribute attribute : attributes) {
+			if (attribute instanceof PermissionAttribute) {
+				int required = ((PermissionAttribute) attribute).getPermission().mask();
+				return (Permission.mask(authentication) & required) != 0 ? ACCESS_GRANTED : ACCESS_DENIED;
+			}
+		}
+		return ACCESS_ABSTAIN;
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.rest.api.security;
+
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+/**
+ * OAuth2Authentication with its authorities resolved to a {@link Permission} mask,
+ * copies share the mask of the original.
+ */
+public class PermittedAuthentication extends OAuth2Authentication {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int permissions;
+
+	public PermittedAuthentication(OAuth2Authentication authentication) {
+		super(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+		permissions = authentication instanceof PermittedAuthentication ? ((PermittedAuthentication) authentication).permissions
+				: Permission.mask(getAuthorities());
+	}
+
+	public int getPermissions() {
+		return permissions;
+	}
+
+}
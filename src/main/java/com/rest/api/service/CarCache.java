@@ -0,0 +1,81 @@
+package com.rest.api.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rest.api.data.CarRepository;
+import com.rest.api.data.ReplicaRoutingDataSource;
+import com.rest.api.model.Car;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache of cars by id (W-TinyLFU admission and eviction).
+ * <p/>
+ * Bounded by the estimated size of the cached cars, entries are reloaded in background
+ * <code>car.cache.refresh-after-write</code> milliseconds after being loaded.
+ * Cached instances are shared between callers and must not be modified. With read replicas they are loaded
+ * from the primary: a lagging replica would cache a car older than the last write.
+ */
+@Component
+public class CarCache {
+
+	// object headers, fields, BigDecimal and ZonedDateTime
+	private static final int CAR_WEIGHT = 256;
+
+	private final LoadingCache<Long, Car> cars;
+
+	@Autowired
+	public CarCache(CarRepository carRepository,
+			@Value("${car.cache.max-weight:16777216}") long maxWeight,
+			@Value("${car.cache.refresh-after-write:60000}") long refreshAfterWrite,
+			@Value("${car.cache.expire-after-write:600000}") long expireAfterWrite) {
+		cars = Caffeine.newBuilder()
+				.maximumWeight(maxWeight)
+				.weigher((Long id, Car car) -> CAR_WEIGHT + 2 * (length(car.getBrand()) + length(car.getModel())))
+				.refreshAfterWrite(refreshAfterWrite, TimeUnit.MILLISECONDS)
+				// bounds staleness for writes made by other nodes
+				.expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build(id -> ReplicaRoutingDataSource.onPrimary(() -> carRepository.findById(id).orElse(null)));
+	}
+
+	@Autowired(required = false)
+	public void bindMetrics(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cars, "cars");
+	}
+
+	// null if not found
+	public Car get(Long id) {
+		return cars.get(id);
+	}
+
+	// null if not cached, never loads
+	public Car getIfPresent(Long id) {
+		return cars.getIfPresent(id);
+	}
+
+	public void invalidate(Long id) {
+		cars.invalidate(id);
+	}
+
+	public void invalidateAll() {
+		cars.invalidateAll();
+	}
+
+	public CacheStats stats() {
+		return cars.stats();
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+
+}
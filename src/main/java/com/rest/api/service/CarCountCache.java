@@ -0,0 +1,105 @@
+package com.rest.api.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.rest.api.data.ReplicaRoutingDataSource;
+
+/**
+ * Total counts of paginated searches, keyed by the normalized predicate (compared by structure and constants,
+ * not by its string form), at most <code>car.count.max-entries</code> of them.
+ * <p/>
+ * Every write advances the generation, so counts computed before it are no longer exact.
+ * In approximate mode they are still served for <code>car.count.max-staleness</code> milliseconds
+ * and reported as estimated. Writes made by other nodes are not seen. Counts read from a replica are
+ * returned but not cached.
+ */
+@Component
+public class CarCountCache {
+
+	private final boolean approximate;
+	private final long maxStaleness;
+
+	private final AtomicLong generation = new AtomicLong();
+	private final Cache<Expression<Boolean>, Entry> counts;
+
+	public CarCountCache(
+			@Value("${car.count.approximate:false}") boolean approximate,
+			@Value("${car.count.max-staleness:30000}") long maxStaleness,
+			@Value("${car.count.max-entries:1000}") int maxEntries) {
+		this.approximate = approximate;
+		this.maxStaleness = maxStaleness;
+		this.counts = Caffeine.newBuilder().maximumSize(maxEntries).build();
+	}
+
+	public Count count(Predicate predicate, LongSupplier counter) {
+		Expression<Boolean> key = key(predicate);
+		long current = generation.get();
+		Entry entry = counts.getIfPresent(key);
+		if (entry != null) {
+			if (entry.generation == current) {
+				return new Count(entry.value, false);
+			}
+			if (approximate && System.currentTimeMillis() - entry.timestamp < maxStaleness) {
+				return new Count(entry.value, true);
+			}
+		}
+
+		long value = counter.getAsLong();
+		// a write during the count query makes the value stale
+		if (generation.get() == current && !ReplicaRoutingDataSource.isReplicaRead()) {
+			counts.put(key, new Entry(value, current, System.currentTimeMillis()));
+		}
+		return new Count(value, false);
+	}
+
+	public void invalidate() {
+		generation.incrementAndGet();
+	}
+
+	// an empty BooleanBuilder and no predicate are the same search, all cars
+	private static Expression<Boolean> key(Predicate predicate) {
+		Expression<Boolean> normalized = predicate == null ? null : ExpressionUtils.extract(predicate);
+		return normalized == null ? Expressions.TRUE : normalized;
+	}
+
+	public static final class Count {
+		private final long value;
+		private final boolean estimated;
+
+		private Count(long value, boolean estimated) {
+			this.value = value;
+			this.estimated = estimated;
+		}
+
+		public long getValue() {
+			return value;
+		}
+
+		public boolean isEstimated() {
+			return estimated;
+		}
+	}
+
+	private static final class Entry {
+		private final long value;
+		private final long generation;
+		private final long timestamp;
+
+		private Entry(long value, long generation, long timestamp) {
+			this.value = value;
+			this.generation = generation;
+			this.timestamp = timestamp;
+		}
+	}
+
+}
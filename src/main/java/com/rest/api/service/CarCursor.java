@@ -0,0 +1,147 @@
+package com.rest.api.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Sort.Order;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.rest.api.exception.InvalidCursorException;
+import com.rest.api.model.Car;
+import com.rest.api.model.QCar;
+
+/**
+ * Position of the last car returned by a keyset (seek) paginated search.
+ * <p/>
+ * A cursor is ordered on <code>(sortKey, id)</code> and is exchanged with clients as an opaque string.
+ */
+public final class CarCursor {
+
+	private static final String SEPARATOR = ",";
+
+	private final String property;
+	private final Direction direction;
+	private final long id;
+	private final String value;
+
+	private CarCursor(String property, Direction direction, long id, String value) {
+		this.property = property;
+		this.direction = direction;
+		this.id = id;
+		this.value = value;
+	}
+
+	// cursor pointing after the given car, ordered as sort
+	public static CarCursor after(Car car, Sort sort) throws InvalidCursorException {
+		Order order = sortKey(sort);
+		return new CarCursor(order.getProperty(), order.getDirection(), car.getId(), valueOf(car, order.getProperty()));
+	}
+
+	public static CarCursor decode(String cursor) throws InvalidCursorException {
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+			if (parts.length != 4) {
+				throw new InvalidCursorException();
+			}
+			CarCursor carCursor = new CarCursor(parts[0], Direction.fromString(parts[1]), Long.parseLong(parts[2]), parts[3]);
+			// validate property and value
+			carCursor.toPredicate();
+			return carCursor;
+		} catch (IllegalArgumentException e) {
+			throw new InvalidCursorException();
+		}
+	}
+
+	public String encode() {
+		String raw = property + SEPARATOR + direction + SEPARATOR + id + SEPARATOR + value;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// total order on sort key then id
+	public static Sort keysetSort(Sort sort) throws InvalidCursorException {
+		return keysetSort(sortKey(sort));
+	}
+
+	public Sort getSort() {
+		return keysetSort(new Order(direction, property));
+	}
+
+	private static Sort keysetSort(Order order) {
+		if ("id".equals(order.getProperty())) {
+			return Sort.by(order);
+		}
+		return Sort.by(order, new Order(order.getDirection(), "id"));
+	}
+
+	// sortKey >= value and (sortKey > value or id > lastId), index friendly form of (sortKey, id) > (value, lastId)
+	public Predicate toPredicate() {
+		QCar car = QCar.car;
+		boolean asc = direction.isAscending();
+		BooleanBuilder seek = new BooleanBuilder();
+		switch (property) {
+		case "id":
+			return asc ? car.id.gt(id) : car.id.lt(id);
+		case "brand":
+			seek.and(asc ? car.brand.goe(value) : car.brand.loe(value))
+				.andAnyOf(asc ? car.brand.gt(value) : car.brand.lt(value), asc ? car.id.gt(id) : car.id.lt(id));
+			break;
+		case "model":
+			seek.and(asc ? car.model.goe(value) : car.model.loe(value))
+				.andAnyOf(asc ? car.model.gt(value) : car.model.lt(value), asc ? car.id.gt(id) : car.id.lt(id));
+			break;
+		case "version":
+			int version = Integer.parseInt(value);
+			seek.and(asc ? car.version.goe(version) : car.version.loe(version))
+				.andAnyOf(asc ? car.version.gt(version) : car.version.lt(version), asc ? car.id.gt(id) : car.id.lt(id));
+			break;
+		case "price":
+			BigDecimal price = new BigDecimal(value);
+			seek.and(asc ? car.price.goe(price) : car.price.loe(price))
+				.andAnyOf(asc ? car.price.gt(price) : car.price.lt(price), asc ? car.id.gt(id) : car.id.lt(id));
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported keyset property " + property);
+		}
+		return seek;
+	}
+
+	private static Order sortKey(Sort sort) throws InvalidCursorException {
+		Iterator<Order> orders = sort.iterator();
+		if (!orders.hasNext()) {
+			return Order.asc("id");
+		}
+		Order order = orders.next();
+		// only a single sort key (plus id as tie breaker) is supported
+		if (orders.hasNext()) {
+			Order tieBreaker = orders.next();
+			if (!"id".equals(tieBreaker.getProperty()) || orders.hasNext()) {
+				throw new InvalidCursorException();
+			}
+		}
+		valueOf(new Car(), order.getProperty());
+		return order;
+	}
+
+	private static String valueOf(Car car, String property) throws InvalidCursorException {
+		switch (property) {
+		case "id":
+			return Long.toString(car.getId());
+		case "brand":
+			return car.getBrand();
+		case "model":
+			return car.getModel();
+		case "version":
+			return Integer.toString(car.getVersion());
+		case "price":
+			return car.getPrice() == null ? null : car.getPrice().toPlainString();
+		default:
+			throw new InvalidCursorException();
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.rest.api.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.rest.api.exception.InvalidFieldsException;
+import com.rest.api.model.Car;
+import com.rest.api.model.QCar;
+
+/**
+ * Sparse fieldset of a car (<code>?fields=brand,price</code>), selected as a tuple projection.
+ * <p/>
+ * The id is always included, cars are represented as maps keyed by field name.
+ */
+public final class CarFields {
+
+	private static final Map<String, Expression<?>> COLUMNS;
+
+	static {
+		QCar car = QCar.car;
+		Map<String, Expression<?>> columns = new LinkedHashMap<>();
+		columns.put("id", car.id);
+		columns.put("brand", car.brand);
+		columns.put("model", car.model);
+		columns.put("version", car.version);
+		columns.put("price", car.price);
+		COLUMNS = Collections.unmodifiableMap(columns);
+	}
+
+	private final List<String> names;
+
+	private CarFields(List<String> names) {
+		this.names = names;
+	}
+
+	public static CarFields parse(String fields) throws InvalidFieldsException {
+		List<String> names = new ArrayList<>();
+		names.add("id");
+		for (String name : fields.split(",")) {
+			name = name.trim();
+			if (!COLUMNS.containsKey(name)) {
+				throw new InvalidFieldsException();
+			}
+			if (!names.contains(name)) {
+				names.add(name);
+			}
+		}
+		return new CarFields(names);
+	}
+
+	public Expression<?>[] getColumns() {
+		return names.stream().map(COLUMNS::get).toArray(Expression<?>[]::new);
+	}
+
+	public Map<String, Object> toMap(Tuple tuple) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < names.size(); i++) {
+			map.put(names.get(i), tuple.get(i, Object.class));
+		}
+		return map;
+	}
+
+	// for cars already loaded
+	public Map<String, Object> toMap(Car car) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (String name : names) {
+			switch (name) {
+			case "id":
+				map.put(name, car.getId());
+				break;
+			case "brand":
+				map.put(name, car.getBrand());
+				break;
+			case "model":
+				map.put(name, car.getModel());
+				break;
+			case "version":
+				map.put(name, car.getVersion());
+				break;
+			default:
+				map.put(name, car.getPrice());
+			}
+		}
+		return map;
+	}
+
+}
@@ -1,8 +1,60 @@
 package com.rest.api.service;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import javax.validation.Valid;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.querydsl.core.types.Predicate;
+import com.rest.api.exception.CarModifiedException;
+import com.rest.api.exception.EntityNotFoundException;
+import com.rest.api.exception.InvalidCursorException;
 import com.rest.api.model.Car;
+import com.rest.api.model.CarPatch;
+import com.rest.api.model.ImportReport;
 
 public interface CarService extends CrudService<Car, Long> {
 
+	// offset pagination without count query
+	Slice<Car> findAllSliced(Predicate predicate, Pageable pageable);
+
+	// sparse fieldsets, only the requested columns are selected
+	Page<Map<String, Object>> findAllPaginated(Predicate predicate, Pageable pageable, CarFields fields);
+
+	Slice<Map<String, Object>> findAllSliced(Predicate predicate, Pageable pageable, CarFields fields);
+
+	Map<String, Object> findById(Long id, CarFields fields) throws EntityNotFoundException;
+
+	// keyset pagination, after == null for the first page
+	Slice<Car> findAllByKeyset(Predicate predicate, CarCursor after, Pageable pageable) throws InvalidCursorException;
+
+	// versions for conditional requests, without loading the cars (see CarVersions)
+	String findVersion(Long id) throws EntityNotFoundException;
+
+	String findPageVersion(Predicate predicate, Pageable pageable, boolean withCount);
+
+	String findKeysetVersion(Predicate predicate, CarCursor after, Pageable pageable) throws InvalidCursorException;
+
+	// all cars matching the predicate, in id order and without loading them all in memory
+	void export(Predicate predicate, Consumer<Car> action);
+
+	// validates and inserts in chunks, without holding the whole upload in memory
+	ImportReport importCars(Iterator<ImportRow> rows);
+
+	// partial update without reading the car
+	void patch(Long id, @Valid CarPatch patch) throws EntityNotFoundException;
+
+	// conditional writes (If-Match), versions of CarVersions, the new version is returned
+	String update(Long id, @Valid Car entity, List<String> versions) throws EntityNotFoundException, CarModifiedException;
+
+	String patch(Long id, @Valid CarPatch patch, List<String> versions) throws EntityNotFoundException, CarModifiedException;
+
+	void deleteById(Long id, List<String> versions) throws EntityNotFoundException, CarModifiedException;
+
 }
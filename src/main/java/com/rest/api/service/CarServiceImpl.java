@@ -1,36 +1,91 @@
 package com.rest.api.service;
 
 import java.time.ZonedDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.validation.annotation.Validated;
 
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
 import com.rest.api.data.CarRepository;
+import com.rest.api.exception.CarModifiedException;
 import com.rest.api.exception.CarNotFoundException;
 import com.rest.api.exception.EntityNotFoundException;
+import com.rest.api.exception.InvalidCursorException;
 import com.rest.api.model.Car;
+import com.rest.api.model.CarPatch;
+import com.rest.api.model.ImportReport;
+import com.rest.api.model.QCar;
+import com.rest.api.model.error.FieldError;
+import com.rest.api.model.error.RowError;
+import com.rest.api.model.error.ValidationError;
 
 @Service
 @Validated
 public class CarServiceImpl implements CarService {
+	
+	private static final String VALIDATION_ERROR = "exception.validation";
+	private static final String IMPORT_UNREADABLE = "import.row.unreadable";
+	private static final String IMPORT_NOT_INSERTED = "import.row.notinserted";
+
+	private static final Logger LOG = LoggerFactory.getLogger(CarServiceImpl.class);
 
 	@Autowired
 	private CarRepository carRepository;
 	
+	@Autowired
+	private CarCountCache countCache;
+	
+	@Autowired
+	private CarCache carCache;
+	
+	@Autowired
+	private Validator validator;
+	
+	@Autowired
+	private MessageSource messageSource;
+	
+	@Value("${car.import.chunk-size:500}")
+	private int importChunkSize;
+	
+	@Value("${car.import.max-errors:100}")
+	private int importMaxErrors;
+	
 	@PreAuthorize("hasAuthority('CAR_READ')")
 	public Car findById(Long id) throws EntityNotFoundException {
-		Optional<Car> optCar = carRepository.findById(id);
-		if(optCar.isPresent())
-			return optCar.get();
+		Car car = carCache.get(id);
+		if(car != null)
+			return car;
 		else
 			throw new CarNotFoundException();
 	}
@@ -41,44 +96,263 @@ public class CarServiceImpl implements CarService {
 	}
 
 	@PreAuthorize("hasAuthority('CAR_READ')")
+	public Map<String, Object> findById(Long id, CarFields fields) throws EntityNotFoundException {
+		Car car = carCache.getIfPresent(id);
+		if(car != null)
+			return fields.toMap(car);
+		
+		Tuple tuple = carRepository.findColumnsById(id, fields.getColumns());
+		if(tuple != null)
+			return fields.toMap(tuple);
+		else
+			throw new CarNotFoundException();
+	}
+
+	// the slice and the count from the same replica
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	@Transactional(readOnly = true)
 	public Page<Car> findAllPaginated(Predicate predicate, Pageable pageable) {
-		return carRepository.findAll(predicate, pageable);
+		return toPage(carRepository.findSlice(predicate, pageable), predicate, pageable);
+	}
+
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	@Transactional(readOnly = true)
+	public Page<Map<String, Object>> findAllPaginated(Predicate predicate, Pageable pageable, CarFields fields) {
+		return toPage(findAllSliced(predicate, pageable, fields), predicate, pageable);
+	}
+
+	private <T> Page<T> toPage(Slice<T> slice, Predicate predicate, Pageable pageable) {
+		if(!slice.hasNext() && (slice.hasContent() || pageable.getOffset() == 0)) {
+			// last page, no count query needed
+			return new PageImpl<>(slice.getContent(), pageable, pageable.getOffset() + slice.getNumberOfElements());
+		}
+		
+		CarCountCache.Count total = countCache.count(predicate, () -> carRepository.count(predicate));
+		if(total.isEstimated())
+			return new EstimatedPage<>(slice.getContent(), pageable, total.getValue());
+		else
+			return new PageImpl<>(slice.getContent(), pageable, total.getValue());
+	}
+
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	public Slice<Car> findAllSliced(Predicate predicate, Pageable pageable) {
+		return carRepository.findSlice(predicate, pageable);
+	}
+
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	public Slice<Map<String, Object>> findAllSliced(Predicate predicate, Pageable pageable, CarFields fields) {
+		return carRepository.findSlice(predicate, pageable, fields.getColumns()).map(fields::toMap);
+	}
+
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	public Slice<Car> findAllByKeyset(Predicate predicate, CarCursor after, Pageable pageable) throws InvalidCursorException {
+		return carRepository.findSlice(seek(predicate, after), keysetPage(after, pageable));
+	}
+
+	private static Predicate seek(Predicate predicate, CarCursor after) {
+		return after == null ? predicate : new BooleanBuilder().and(predicate).and(after.toPredicate());
+	}
+
+	private static Pageable keysetPage(CarCursor after, Pageable pageable) throws InvalidCursorException {
+		Sort sort = after == null ? CarCursor.keysetSort(pageable.getSort()) : after.getSort();
+		return PageRequest.of(0, pageable.getPageSize(), sort);
+	}
+
+	// cached car, or its update date alone
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	public String findVersion(Long id) throws EntityNotFoundException {
+		Car car = carCache.getIfPresent(id);
+		if(car != null)
+			return CarVersions.of(car);
+		
+		Tuple tuple = carRepository.findColumnsById(id, QCar.car.updateDate);
+		if(tuple != null)
+			return CarVersions.of(tuple.get(QCar.car.updateDate));
+		else
+			throw new CarNotFoundException();
+	}
+
+	// same query and total as findAllPaginated and findAllSliced, selecting (id, updateDate) only
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	@Transactional(readOnly = true)
+	public String findPageVersion(Predicate predicate, Pageable pageable, boolean withCount) {
+		Slice<Tuple> rows = carRepository.findSlice(predicate, pageable, CarVersions.COLUMNS);
+		if(!withCount)
+			return CarVersions.ofRows(rows.getContent(), rows.hasNext(), -1);
+		
+		Page<Tuple> page = toPage(rows, predicate, pageable);
+		return CarVersions.ofRows(page.getContent(), page.hasNext(), page.getTotalElements());
+	}
+
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	public String findKeysetVersion(Predicate predicate, CarCursor after, Pageable pageable) throws InvalidCursorException {
+		Slice<Tuple> rows = carRepository.findSlice(seek(predicate, after), keysetPage(after, pageable), CarVersions.COLUMNS);
+		return CarVersions.ofRows(rows.getContent(), rows.hasNext(), -1);
+	}
+	
+	@PreAuthorize("hasAuthority('CAR_READ')")
+	public void export(Predicate predicate, Consumer<Car> action) {
+		carRepository.forEach(predicate, action);
 	}
 	
 	@PreAuthorize("hasAuthority('CAR_CREATE')")
 	public Car add(@Valid Car entity) {
 		entity.setInsertDate(ZonedDateTime.now());
 		entity.setUpdateDate(ZonedDateTime.now());
-		return carRepository.save(entity);
+		Car car = carRepository.save(entity);
+		invalidate(car.getId());
+		return car;
+	}
+
+	@PreAuthorize("hasAuthority('CAR_CREATE')")
+	public ImportReport importCars(Iterator<ImportRow> rows) {
+		ImportReport report = new ImportReport(importMaxErrors);
+		Locale locale = LocaleContextHolder.getLocale();
+		List<ImportRow> chunk = new ArrayList<>(importChunkSize);
+		
+		while(rows.hasNext()) {
+			ImportRow row = rows.next();
+			if(row.getCar() == null) {
+				report.reject(new RowError(row.getLine(), RowError.UNREADABLE, messageSource.getMessage(IMPORT_UNREADABLE, new Object[] {row.getError()}, locale)));
+				continue;
+			}
+			
+			Set<ConstraintViolation<Car>> violations = validator.validate(row.getCar());
+			if(!violations.isEmpty()) {
+				RowError error = new RowError(row.getLine(), ValidationError.CODE, messageSource.getMessage(VALIDATION_ERROR, null, locale));
+				for (ConstraintViolation<Car> cv : violations) {
+					error.addFieldError(new FieldError(1, cv.getPropertyPath().toString(), cv.getMessage()));
+				}
+				report.reject(error);
+				continue;
+			}
+			
+			chunk.add(row);
+			if(chunk.size() == importChunkSize)
+				insert(chunk, report, locale);
+		}
+		insert(chunk, report, locale);
+		
+		return report;
+	}
+	
+	// one transaction per chunk, inserts are sent in JDBC batches of hibernate.jdbc.batch_size
+	// the rows of a chunk rolled back are rejected, the next chunks are still inserted
+	private void insert(List<ImportRow> chunk, ImportReport report, Locale locale) {
+		if(chunk.isEmpty())
+			return;
+		
+		ZonedDateTime now = ZonedDateTime.now();
+		List<Car> cars = new ArrayList<>(chunk.size());
+		for (ImportRow row : chunk) {
+			row.getCar().setInsertDate(now);
+			row.getCar().setUpdateDate(now);
+			cars.add(row.getCar());
+		}
+		try {
+			carRepository.saveAll(cars);
+			invalidate(null);
+			report.addImported(chunk.size());
+		} catch (DataAccessException e) {
+			LOG.warn("Import chunk of lines {}-{} rolled back", chunk.get(0).getLine(), chunk.get(chunk.size() - 1).getLine(), e);
+			String message = messageSource.getMessage(IMPORT_NOT_INSERTED, new Object[] {chunk.size()}, locale);
+			for (ImportRow row : chunk) {
+				report.reject(new RowError(row.getLine(), RowError.NOT_INSERTED, message));
+			}
+		}
+		chunk.clear();
 	}
 
+	// single UPDATE, insertDate is kept
 	@PreAuthorize("hasAuthority('CAR_UPDATE')")
 	public void update(Long id, @Valid Car entity) throws EntityNotFoundException {
-		Optional<Car> optCar = carRepository.findById(id);
-		if(optCar.isPresent()) {
-			entity.setId(id);
-			entity.setUpdateDate(ZonedDateTime.now());
-			carRepository.save(entity);
-		} else
-			throw new CarNotFoundException();		
+		entity.setId(id);
+		entity.setUpdateDate(ZonedDateTime.now());
+		if(carRepository.update(id, entity, null) == 0)
+			throw new CarNotFoundException();
+		invalidate(id);
+	}
+
+	// the write and the lookup of a missed write on the primary
+	@PreAuthorize("hasAuthority('CAR_UPDATE')")
+	@Transactional
+	public String update(Long id, @Valid Car entity, List<String> versions) throws EntityNotFoundException, CarModifiedException {
+		Predicate condition = CarVersions.matching(versions);
+		entity.setId(id);
+		entity.setUpdateDate(ZonedDateTime.now());
+		written(id, condition != null && carRepository.update(id, entity, condition) > 0);
+		return CarVersions.of(entity);
+	}
+
+	@PreAuthorize("hasAuthority('CAR_UPDATE')")
+	public void patch(Long id, @Valid CarPatch patch) throws EntityNotFoundException {
+		if(carRepository.patch(id, patch, ZonedDateTime.now(), null) == 0)
+			throw new CarNotFoundException();
+		invalidate(id);
+	}
+
+	@PreAuthorize("hasAuthority('CAR_UPDATE')")
+	@Transactional
+	public String patch(Long id, @Valid CarPatch patch, List<String> versions) throws EntityNotFoundException, CarModifiedException {
+		Predicate condition = CarVersions.matching(versions);
+		ZonedDateTime updateDate = ZonedDateTime.now();
+		written(id, condition != null && carRepository.patch(id, patch, updateDate, condition) > 0);
+		return CarVersions.of(updateDate);
+	}
+
+	@PreAuthorize("hasAuthority('CAR_DELETE')")
+	@Transactional
+	public void deleteById(Long id, List<String> versions) throws EntityNotFoundException, CarModifiedException {
+		Predicate condition = CarVersions.matching(versions);
+		written(id, condition != null && carRepository.delete(id, condition) > 0);
+	}
+
+	// the car is looked up only when a conditional write did nothing, to tell 404 from 412
+	private void written(Long id, boolean written) throws EntityNotFoundException, CarModifiedException {
+		if(!written) {
+			if(carRepository.existsById(id))
+				throw new CarModifiedException();
+			else
+				throw new CarNotFoundException();
+		}
+		invalidate(id);
 	}
 
 	@PreAuthorize("hasAuthority('CAR_DELETE')")
 	public void deleteById(Long id) throws EntityNotFoundException {
-		try {
-			carRepository.deleteById(id);
-		} catch (EmptyResultDataAccessException e) {
+		if(carRepository.deleteCarById(id) == 0)
 			throw new CarNotFoundException();
-		}
+		invalidate(id);
 	}
 
 	@PreAuthorize("hasAuthority('CAR_DELETE')")
 	public void delete(Car entity) throws EntityNotFoundException {		
 		try {
 			carRepository.delete(entity);
+			invalidate(entity.getId());
 		} catch (EmptyResultDataAccessException e) {
 			throw new CarNotFoundException();
 		}
 	}
 
+	// id null when only the counts change; within a transaction again after the commit, a read in between
+	// caches the previous row or count under the new generation
+	private void invalidate(Long id) {
+		invalidateCaches(id);
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					invalidateCaches(id);
+				}
+			});
+		}
+	}
+
+	private void invalidateCaches(Long id) {
+		if(id != null)
+			carCache.invalidate(id);
+		countCache.invalidate();
+	}
+
 }
@@ -0,0 +1,100 @@
+package com.rest.api.service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.rest.api.model.Car;
+import com.rest.api.model.QCar;
+
+/**
+ * Versions of cars and car pages, the ETags of their JSON representations.
+ * <p/>
+ * A car changes version with its update date. A page changes version when one of its cars is replaced
+ * or updated, when a next page appears or disappears, or when the total count changes. The same version
+ * is computed from the loaded cars and from the <code>(id, updateDate)</code> columns alone, and the
+ * version of a car turns back into a condition on its update date for conditional writes.
+ */
+public final class CarVersions {
+
+	static final Expression<?>[] COLUMNS = {QCar.car.id, QCar.car.updateDate};
+
+	// FNV-1a, 64 bits
+	private static final long OFFSET = 0xcbf29ce484222325L;
+	private static final long PRIME = 0x100000001b3L;
+
+	private CarVersions() {
+	}
+
+	public static String of(Car car) {
+		return of(car.getUpdateDate());
+	}
+
+	static String of(ZonedDateTime updateDate) {
+		return Long.toString(millis(updateDate), 36);
+	}
+
+	/**
+	 * Cars at one of the versions, the update date within the millisecond of the version.
+	 * Null when no version is one of a car: the condition cannot hold.
+	 */
+	public static Predicate matching(List<String> versions) {
+		QCar car = QCar.car;
+		BooleanBuilder any = new BooleanBuilder();
+		for (String version : versions) {
+			long millis;
+			try {
+				millis = Long.parseLong(version, 36);
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			if (millis == 0) {
+				any.or(car.updateDate.isNull());
+			} else {
+				ZonedDateTime from = ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+				any.or(car.updateDate.goe(from).and(car.updateDate.lt(from.plusNanos(1000000))));
+			}
+		}
+		return any.getValue();
+	}
+
+	// total -1 when not counted
+	public static String ofPage(List<Car> cars, boolean hasNext, long total) {
+		long hash = OFFSET;
+		for (Car car : cars) {
+			hash = mix(mix(hash, car.getId()), millis(car.getUpdateDate()));
+		}
+		return format(hash, hasNext, total);
+	}
+
+	// rows of COLUMNS
+	static String ofRows(List<Tuple> rows, boolean hasNext, long total) {
+		long hash = OFFSET;
+		for (Tuple row : rows) {
+			hash = mix(mix(hash, row.get(QCar.car.id)), millis(row.get(QCar.car.updateDate)));
+		}
+		return format(hash, hasNext, total);
+	}
+
+	private static String format(long hash, boolean hasNext, long total) {
+		String version = hasNext ? Long.toHexString(hash) + "n" : Long.toHexString(hash);
+		return total < 0 ? version : version + "-" + total;
+	}
+
+	private static long mix(long hash, long value) {
+		for (int i = 0; i < 64; i += 8) {
+			hash = (hash ^ ((value >>> i) & 0xff)) * PRIME;
+		}
+		return hash;
+	}
+
+	private static long millis(ZonedDateTime updateDate) {
+		return updateDate == null ? 0 : updateDate.toInstant().toEpochMilli();
+	}
+
+}
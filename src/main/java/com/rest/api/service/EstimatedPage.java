@@ -0,0 +1,19 @@
+package com.rest.api.service;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Page whose total count may be stale (see {@link CarCountCache}).
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	public EstimatedPage(List<T> content, Pageable pageable, long total) {
+		super(content, pageable, total);
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.rest.api.service;
+
+import com.rest.api.model.Car;
+
+/**
+ * A parsed line of an import, the car or the reason it could not be read.
+ */
+public final class ImportRow {
+
+	private final long line;
+	private final Car car;
+	private final String error;
+
+	private ImportRow(long line, Car car, String error) {
+		this.line = line;
+		this.car = car;
+		this.error = error;
+	}
+
+	public static ImportRow of(long line, Car car) {
+		return new ImportRow(line, car, null);
+	}
+
+	public static ImportRow unreadable(long line, String error) {
+		return new ImportRow(line, null, error);
+	}
+
+	public long getLine() {
+		return line;
+	}
+
+	// null if unreadable
+	public Car getCar() {
+		return car;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+}
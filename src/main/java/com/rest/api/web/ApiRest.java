@@ -4,4 +4,12 @@ public class ApiRest {
 	
 	public static final String API_PATH = "/api/v1";
 	
+	// streaming formats
+	public static final String NDJSON_VALUE = "application/x-ndjson";
+	public static final String CSV_VALUE = "text/csv";
+	
+	// binary representations of the JSON documents
+	public static final String CBOR_VALUE = "application/cbor";
+	public static final String SMILE_VALUE = "application/x-jackson-smile";
+	
 }
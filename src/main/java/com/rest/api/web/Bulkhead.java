@@ -0,0 +1,176 @@
+package com.rest.api.web;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.rest.api.exception.BulkheadFullException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Fixed threads and a bounded queue for the tasks of a request, so that slow queries wait here instead
+ * of holding Tomcat threads.
+ * <p/>
+ * A task submitted while every thread is busy and the queue is full is rejected at once. Tasks see the
+ * security and locale contexts of the submitting thread, not its request attributes. An inline bulkhead
+ * runs the tasks on the submitting thread and never rejects them.
+ * <p/>
+ * A virtual bulkhead starts a virtual thread per task instead of keeping threads: the same number of tasks
+ * run at once, the others wait for a permit and count as queued.
+ * <p/>
+ * Metrics: "executor.*" (queued, active, pool.size, completed; queued and active only when virtual) and
+ * "bulkhead.rejected" counter with the name tag.
+ */
+public class Bulkhead {
+
+	private final String name;
+	// null when inline or virtual
+	private final ThreadPoolExecutor executor;
+	// null unless virtual
+	private final ExecutorService virtualThreads;
+	private final Semaphore running;
+	private final Semaphore admitted;
+	private final int threads;
+	private final int capacity;
+	// no-op until bound
+	private MeterRegistry registry = new CompositeMeterRegistry();
+
+	public Bulkhead(String name, int threads, int queueCapacity) {
+		this.name = name;
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(name + "-"), new ThreadPoolExecutor.AbortPolicy());
+		virtualThreads = null;
+		running = null;
+		admitted = null;
+		this.threads = threads;
+		this.capacity = threads + queueCapacity;
+	}
+
+	private Bulkhead(String name, ExecutorService virtualThreads, int threads, int queueCapacity) {
+		this.name = name;
+		this.executor = null;
+		this.virtualThreads = virtualThreads;
+		this.threads = threads;
+		this.capacity = threads + queueCapacity;
+		running = virtualThreads == null ? null : new Semaphore(threads);
+		admitted = virtualThreads == null ? null : new Semaphore(capacity);
+	}
+
+	public static Bulkhead inline(String name) {
+		return new Bulkhead(name, null, 0, 0);
+	}
+
+	// IllegalStateException before JDK 21
+	public static Bulkhead virtual(String name, int threads, int queueCapacity) {
+		return new Bulkhead(name, VirtualThreads.newThreadPerTaskExecutor(name + "-"), threads, queueCapacity);
+	}
+
+	public void bindMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		if (executor != null) {
+			new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+		} else if (virtualThreads != null) {
+			Gauge.builder("executor.active", running, permits -> threads - permits.availablePermits())
+					.tags("name", name)
+					.description("The approximate number of threads that are actively executing tasks")
+					.register(registry);
+			Gauge.builder("executor.queued", admitted, permits -> capacity - permits.availablePermits() - (threads - running.availablePermits()))
+					.tags("name", name)
+					.description("The approximate number of tasks that are queued for execution")
+					.register(registry);
+		}
+	}
+
+	// the future fails with the exception of the task
+	public <T> CompletableFuture<T> submit(Callable<T> task) throws BulkheadFullException {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		if (executor == null && virtualThreads == null) {
+			run(task, result);
+			return result;
+		}
+
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+		Runnable command = () -> {
+			SecurityContextHolder.setContext(securityContext);
+			LocaleContextHolder.setLocaleContext(localeContext);
+			try {
+				run(task, result);
+			} finally {
+				SecurityContextHolder.clearContext();
+				LocaleContextHolder.resetLocaleContext();
+			}
+		};
+		try {
+			if (executor != null) {
+				executor.execute(command);
+			} else {
+				startVirtual(command);
+			}
+		} catch (RejectedExecutionException e) {
+			registry.counter("bulkhead.rejected", "name", name).increment();
+			throw new BulkheadFullException();
+		}
+		return result;
+	}
+
+	// queued tasks are dropped, their requests time out
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		} else if (virtualThreads != null) {
+			virtualThreads.shutdownNow();
+		}
+	}
+
+	// the virtual thread of a task admitted within the capacity waits for one of the running permits
+	private void startVirtual(Runnable command) {
+		if (!admitted.tryAcquire()) {
+			throw new RejectedExecutionException();
+		}
+		try {
+			virtualThreads.execute(() -> {
+				try {
+					running.acquire();
+					try {
+						command.run();
+					} finally {
+						running.release();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					admitted.release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			admitted.release();
+			throw e;
+		}
+	}
+
+	private static <T> void run(Callable<T> task, CompletableFuture<T> result) {
+		try {
+			result.complete(task.call());
+		} catch (Throwable e) {
+			result.completeExceptionally(e);
+		}
+	}
+
+}
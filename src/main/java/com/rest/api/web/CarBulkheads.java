@@ -0,0 +1,76 @@
+package com.rest.api.web;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.rest.api.exception.BulkheadFullException;
+import com.rest.api.exception.CodeException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bulkheads of the car requests using a JDBC connection: reads (listCars, getCar) and writes
+ * (add, update, patch, delete), so that a burst of one kind does not starve the other.
+ * <p/>
+ * Off by default, requests run on the Tomcat threads. With <code>car.async.enabled=true</code> they are
+ * processed asynchronously on the bulkhead threads, sized to the connection pool, which never wait for
+ * a connection while the streaming export and import keep the remaining ones. With
+ * <code>car.virtual-threads.enabled=true</code> the tasks run on virtual threads, as many at once.
+ */
+@Component
+public class CarBulkheads {
+
+	private final boolean async;
+	private final Bulkhead reads;
+	private final Bulkhead writes;
+
+	@Autowired
+	public CarBulkheads(
+			@Value("${car.async.enabled:false}") boolean async,
+			@Value("${car.virtual-threads.enabled:false}") boolean virtual,
+			@Value("${car.bulkhead.read.threads:6}") int readThreads,
+			@Value("${car.bulkhead.read.queue:100}") int readQueue,
+			@Value("${car.bulkhead.write.threads:2}") int writeThreads,
+			@Value("${car.bulkhead.write.queue:50}") int writeQueue) {
+		this.async = async;
+		this.reads = bulkhead("cars.read", async, virtual, readThreads, readQueue);
+		this.writes = bulkhead("cars.write", async, virtual, writeThreads, writeQueue);
+	}
+
+	private static Bulkhead bulkhead(String name, boolean async, boolean virtual, int threads, int queue) {
+		if (!async) {
+			return Bulkhead.inline(name);
+		}
+		return virtual ? Bulkhead.virtual(name, threads, queue) : new Bulkhead(name, threads, queue);
+	}
+
+	@Autowired(required = false)
+	public void bindMetrics(MeterRegistry registry) {
+		reads.bindMetrics(registry);
+		writes.bindMetrics(registry);
+	}
+
+	// the result of the task, a CompletableFuture of it when asynchronous
+	public Object read(Task<?> task) throws CodeException {
+		return async ? reads.submit(task::call) : task.call();
+	}
+
+	public Object write(Task<?> task) throws CodeException {
+		return async ? writes.submit(task::call) : task.call();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		reads.shutdown();
+		writes.shutdown();
+	}
+
+	@FunctionalInterface
+	public interface Task<T> {
+		T call() throws CodeException;
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.rest.api.web;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rest.api.model.Car;
+
+/**
+ * CSV (RFC 4180) representation of cars, same fields as the JSON one.
+ */
+public final class CarCsv {
+
+	public static final String HEADER = "id,brand,model,version,price";
+
+	private CarCsv() {
+	}
+
+	public static void write(Writer writer, Car car) throws IOException {
+		writer.write(Long.toString(car.getId()));
+		writer.write(',');
+		writer.write(escape(car.getBrand()));
+		writer.write(',');
+		writer.write(escape(car.getModel()));
+		writer.write(',');
+		writer.write(Integer.toString(car.getVersion()));
+		writer.write(',');
+		writer.write(car.getPrice() == null ? "" : car.getPrice().toPlainString());
+		writer.write("\r\n");
+	}
+
+	// columns as HEADER, the id is not read, quoted fields may hold line breaks
+	public static Car read(String record) {
+		List<String> fields = split(record);
+		if (fields.size() != 5) {
+			throw new IllegalArgumentException("expected 5 fields, found " + fields.size());
+		}
+		Car car = new Car();
+		car.setBrand(fields.get(1).isEmpty() ? null : fields.get(1));
+		car.setModel(fields.get(2).isEmpty() ? null : fields.get(2));
+		car.setVersion(Integer.parseInt(fields.get(3).trim()));
+		car.setPrice(fields.get(4).isEmpty() ? null : new BigDecimal(fields.get(4).trim()));
+		return car;
+	}
+
+	// true while a quoted field is not closed: the record goes on with the next line
+	public static boolean isOpen(CharSequence record) {
+		boolean quoted = false;
+		for (int i = 0; i < record.length(); i++) {
+			if (record.charAt(i) == '"') {
+				quoted = !quoted;
+			}
+		}
+		return quoted;
+	}
+
+	private static List<String> split(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("unterminated quoted field");
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private static String escape(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+}
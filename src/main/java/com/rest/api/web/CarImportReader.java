@@ -0,0 +1,141 @@
+package com.rest.api.web;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rest.api.model.Car;
+import com.rest.api.service.ImportRow;
+
+/**
+ * Reads an NDJSON or CSV upload one line at a time, or a CBOR or Smile upload one value at a time.
+ * <p/>
+ * Blank lines and the CSV header are skipped, ids are ignored. A CSV row with quoted line breaks is numbered
+ * by its first line. Rows of a binary upload are numbered by value, the first malformed value ends it: the
+ * next one cannot be found. A null value is an unreadable row.
+ */
+public class CarImportReader implements Iterator<ImportRow> {
+
+	// a CSV record whose quotes are not closed stops being read past this length
+	private static final int MAX_RECORD = 64 * 1024;
+
+	// null for a binary upload
+	private final BufferedReader reader;
+	// null for CSV
+	private final ObjectReader jsonReader;
+	// binary uploads only
+	private final JsonParser parser;
+	private long lineNumber;
+	private ImportRow next;
+
+	private CarImportReader(BufferedReader reader, ObjectReader jsonReader, JsonParser parser) {
+		this.reader = reader;
+		this.jsonReader = jsonReader;
+		this.parser = parser;
+	}
+
+	public static CarImportReader ndjson(BufferedReader reader, ObjectReader jsonReader) {
+		return new CarImportReader(reader, jsonReader, null);
+	}
+
+	public static CarImportReader csv(BufferedReader reader) {
+		return new CarImportReader(reader, null, null);
+	}
+
+	// parser of the CBOR or Smile factory of the reader's mapper
+	public static CarImportReader values(JsonParser parser, ObjectReader reader) {
+		return new CarImportReader(null, reader, parser);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			next = read();
+		}
+		return next != null;
+	}
+
+	@Override
+	public ImportRow next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		ImportRow row = next;
+		next = null;
+		return row;
+	}
+
+	private ImportRow read() {
+		try {
+			if (parser != null) {
+				return readValue();
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.trim().isEmpty() || (jsonReader == null && lineNumber == 1 && line.equals(CarCsv.HEADER))) {
+					continue;
+				}
+				long first = lineNumber;
+				return parse(first, jsonReader == null ? record(line) : line);
+			}
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private ImportRow readValue() throws IOException {
+		if (parser.isClosed()) {
+			return null;
+		}
+		lineNumber++;
+		try {
+			if (parser.nextToken() == null) {
+				return null;
+			}
+			return row(lineNumber, jsonReader.readValue(parser));
+		} catch (JsonProcessingException e) {
+			parser.close();
+			return ImportRow.unreadable(lineNumber, e.getOriginalMessage());
+		}
+	}
+
+	// the line and the next ones while a quoted field is open
+	private String record(String line) throws IOException {
+		if (!CarCsv.isOpen(line)) {
+			return line;
+		}
+		StringBuilder record = new StringBuilder(line);
+		String next;
+		while (CarCsv.isOpen(record) && record.length() < MAX_RECORD && (next = reader.readLine()) != null) {
+			lineNumber++;
+			record.append('\n').append(next);
+		}
+		return record.toString();
+	}
+
+	private ImportRow parse(long line, String record) throws IOException {
+		try {
+			return row(line, jsonReader == null ? CarCsv.read(record) : jsonReader.readValue(record));
+		} catch (JsonProcessingException e) {
+			return ImportRow.unreadable(line, e.getOriginalMessage());
+		} catch (IllegalArgumentException e) {
+			return ImportRow.unreadable(line, e.getMessage());
+		}
+	}
+
+	private static ImportRow row(long line, Car car) {
+		if (car == null) {
+			return ImportRow.unreadable(line, "null instead of a car");
+		}
+		car.setId(0);
+		return ImportRow.of(line, car);
+	}
+
+}
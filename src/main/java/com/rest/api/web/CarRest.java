@@ -1,35 +1,68 @@
 package com.rest.api.web;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.querydsl.binding.QuerydslPredicate;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.querydsl.core.types.Predicate;
-import com.rest.api.exception.EntityNotFoundException;
+import com.rest.api.exception.CodeException;
+import com.rest.api.exception.InvalidCursorException;
 import com.rest.api.exception.ResourceNotFoundException;
 import com.rest.api.model.Car;
+import com.rest.api.model.CarPatch;
+import com.rest.api.model.ImportReport;
+import com.rest.api.service.CarCursor;
+import com.rest.api.service.CarFields;
 import com.rest.api.service.CarService;
-import com.rest.api.web.event.PaginatedResultsRetrievedEvent;
+import com.rest.api.service.CarVersions;
+import com.rest.api.service.EstimatedPage;
 
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
@@ -42,12 +75,26 @@ import springfox.documentation.annotations.ApiIgnore;
 @RequestMapping(ApiRest.API_PATH + "/cars")
 @Validated
 public class CarRest extends ApiRest {
+	
+	private static final MediaType NDJSON = MediaType.valueOf(ApiRest.NDJSON_VALUE);
+	private static final MediaType CSV = MediaType.valueOf(ApiRest.CSV_VALUE);
+	private static final MediaType CBOR = MediaType.valueOf(ApiRest.CBOR_VALUE);
+	private static final MediaType SMILE = MediaType.valueOf(ApiRest.SMILE_VALUE);
 
 	@Autowired
 	private CarService carService;
 	
+	// handlers on the bulkheads return their result, or a CompletableFuture of it when asynchronous
+	@Autowired
+	private CarBulkheads bulkheads;
+	
+	// the mappers of the message converters, for the streaming export and import
 	@Autowired
-    private ApplicationEventPublisher eventPublisher;
+	private ObjectMapper objectMapper;
+	@Autowired
+	private MappingJackson2CborHttpMessageConverter cborConverter;
+	@Autowired
+	private MappingJackson2SmileHttpMessageConverter smileConverter;
 
 	//@GetMapping
 	//public Iterable<Car> listCars() {
@@ -57,6 +104,9 @@ public class CarRest extends ApiRest {
 	@ApiImplicitParams({
 	    @ApiImplicitParam(name = "page", value = "page number", required = false, dataType = "integer", paramType = "query"),
 	    @ApiImplicitParam(name = "size", value = "page size", required = false, dataType = "integer", paramType = "query"),
+	    @ApiImplicitParam(name = "withCount", value = "compute total count and page count", required = false, dataType = "boolean", paramType = "query"),
+	    @ApiImplicitParam(name = "after", value = "keyset cursor, empty for the first page", required = false, dataType = "string", paramType = "query"),
+	    @ApiImplicitParam(name = "fields", value = "comma separated fields to return, id is always included", required = false, dataType = "string", paramType = "query"),
 	    @ApiImplicitParam(name = "brand", value = "brand filter", required = false, dataType = "string", paramType = "query")
 	  })
 	@ApiOperation(value = "View a list of cars", response = Car.class, responseContainer="List")
@@ -66,54 +116,377 @@ public class CarRest extends ApiRest {
 	        @ApiResponse(code = 403, message = "Accessing the resource you were trying to reach is forbidden"),
 	        @ApiResponse(code = 404, message = "The resource you were trying to reach is not found")
 	})
+	// no @ResponseStatus, it would replace a 304
 	@GetMapping
-	@ResponseStatus(HttpStatus.OK)
-	public Iterable<Car> listCars(
+	public Object listCars(
 			@ApiIgnore @QuerydslPredicate(root = Car.class) Predicate predicate, 
 			@ApiIgnore Pageable  pageable,
-			UriComponentsBuilder uriBuilder, 
-			HttpServletResponse response) {
+			@ApiIgnore @RequestParam(value = "withCount", defaultValue = "false") boolean withCount,
+			@ApiIgnore @RequestParam(value = "after", required = false) String after,
+			@ApiIgnore @RequestParam(value = "fields", required = false) String fields,
+			@ApiIgnore ServletWebRequest webRequest) throws CodeException {
 		
-		Page<Car> resultPage = carService.findAllPaginated(predicate, pageable);
+		webRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		CarFields carFields = fields == null ? null : CarFields.parse(fields);
+		EntityTags tags = new EntityTags(webRequest);
+		String base = after == null ? PaginationHeaders.pageBase(webRequest.getRequest()) : PaginationHeaders.keysetBase(webRequest.getRequest());
+		
+		return bulkheads.read(() -> findCars(predicate, pageable, withCount, after, carFields, tags, base));
+	}
+	
+	// the request is read before and the response written after the task, which only builds the entity
+	private ResponseEntity<?> findCars(Predicate predicate, Pageable pageable, boolean withCount, String after, CarFields carFields, EntityTags tags, String base) throws InvalidCursorException {
+		
+		if(after != null) {
+			return listCarsByKeyset(predicate, pageable, after, carFields, tags, base);
+		}
+		
+		if(!withCount) {
+			return listCarsSliced(predicate, pageable, carFields, tags, base);
+		}
+		
+		if(carFields == null && tags.conditional()) {
+			String eTag = tags.eTag(carService.findPageVersion(predicate, pageable, true));
+			if(tags.matches(eTag)) {
+				return notModified(eTag);
+			}
+		}
+		
+		Page<?> resultPage = carFields == null
+				? carService.findAllPaginated(predicate, pageable)
+				: carService.findAllPaginated(predicate, pageable, carFields);
 		
 		if(pageable.getPageNumber() > resultPage.getTotalPages() - 1) {
 			throw new ResourceNotFoundException();
 		}
 		
-		eventPublisher.publishEvent(new PaginatedResultsRetrievedEvent
-		    (this, ServletUriComponentsBuilder.fromCurrentRequest(), response, resultPage.getTotalElements(), pageable.getPageNumber(), resultPage.getTotalPages(), pageable.getPageSize()));
+		HttpHeaders headers = new HttpHeaders();
+		PaginationHeaders.writePage(headers, base, resultPage.getTotalElements(), pageable.getPageNumber(), resultPage.getTotalPages(), pageable.getPageSize(), resultPage instanceof EstimatedPage);
+		if(carFields == null) {
+			headers.setETag(tags.eTag(CarVersions.ofPage(cars(resultPage), resultPage.hasNext(), resultPage.getTotalElements())));
+		}
 		   
-		return resultPage.getContent();
+		return new ResponseEntity<>(resultPage.getContent(), headers, HttpStatus.OK);
+	}
+	
+	// no count query, totals are not known
+	private ResponseEntity<?> listCarsSliced(Predicate predicate, Pageable pageable, CarFields fields, EntityTags tags, String base) {
+		if(fields == null && tags.conditional()) {
+			String eTag = tags.eTag(carService.findPageVersion(predicate, pageable, false));
+			if(tags.matches(eTag)) {
+				return notModified(eTag);
+			}
+		}
+		
+		Slice<?> resultSlice = fields == null
+				? carService.findAllSliced(predicate, pageable)
+				: carService.findAllSliced(predicate, pageable, fields);
+		
+		if(pageable.getPageNumber() > 0 && !resultSlice.hasContent()) {
+			throw new ResourceNotFoundException();
+		}
+		
+		HttpHeaders headers = new HttpHeaders();
+		PaginationHeaders.writeSlice(headers, base, pageable.getPageNumber(), pageable.getPageSize(), resultSlice.hasNext());
+		if(fields == null) {
+			headers.setETag(tags.eTag(CarVersions.ofPage(cars(resultSlice), resultSlice.hasNext(), -1)));
+		}
+		
+		return new ResponseEntity<>(resultSlice.getContent(), headers, HttpStatus.OK);
+	}
+	
+	// seek on (sort key, id), latency does not depend on depth
+	// the cursor needs the sort keys, so fields are trimmed after the query
+	private ResponseEntity<?> listCarsByKeyset(Predicate predicate, Pageable pageable, String after, CarFields fields, EntityTags tags, String base) throws InvalidCursorException {
+		CarCursor cursor = after.isEmpty() ? null : CarCursor.decode(after);
+		if(fields == null && tags.conditional()) {
+			String eTag = tags.eTag(carService.findKeysetVersion(predicate, cursor, pageable));
+			if(tags.matches(eTag)) {
+				return notModified(eTag);
+			}
+		}
+		
+		Slice<Car> resultSlice = carService.findAllByKeyset(predicate, cursor, pageable);
+		
+		List<Car> content = resultSlice.getContent();
+		String nextCursor = resultSlice.hasNext() ? CarCursor.after(content.get(content.size() - 1), resultSlice.getSort()).encode() : null;
+		
+		HttpHeaders headers = new HttpHeaders();
+		PaginationHeaders.writeKeyset(headers, base, nextCursor, cursor == null, resultSlice.getSize());
+		
+		if(fields != null)
+			return new ResponseEntity<>(content.stream().map(fields::toMap).collect(Collectors.toList()), headers, HttpStatus.OK);
+		headers.setETag(tags.eTag(CarVersions.ofPage(content, resultSlice.hasNext(), -1)));
+		return new ResponseEntity<>(content, headers, HttpStatus.OK);
+	}
+	
+	private static ResponseEntity<?> notModified(String eTag) {
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+	}
+	
+	private static String eTag(String version) {
+		return "\"" + version + "\"";
+	}
+	
+	// suffix of the representation selected by Accept, JSON on wildcards as the first converter
+	private static String variant(String accept) {
+		MediaType type = negotiate(accept, MediaType.APPLICATION_JSON, CBOR, SMILE);
+		return type == CBOR ? "+cbor" : type == SMILE ? "+smile" : "";
+	}
+	
+	// the first of the types compatible with the most specific and preferred Accept type, types[0] on
+	// wildcards or without Accept; types with q=0 are not acceptable
+	private static MediaType negotiate(String accept, MediaType... types) {
+		if(accept == null)
+			return types[0];
+		try {
+			List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+			MediaType.sortBySpecificityAndQuality(accepted);
+			for (MediaType acceptedType : accepted) {
+				if(acceptedType.getQualityValue() == 0)
+					continue;
+				for (MediaType type : types) {
+					if(acceptedType.isCompatibleWith(type))
+						return type;
+				}
+			}
+		} catch (InvalidMediaTypeException e) {
+			// rejected by content negotiation
+		}
+		return types[0];
+	}
+	
+	/**
+	 * Entity tags of a conditional GET, from the headers read on the request thread.
+	 */
+	private static final class EntityTags {
+		
+		private final String ifNoneMatch;
+		private final String variant;
+		
+		private EntityTags(ServletWebRequest webRequest) {
+			ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+			variant = variant(webRequest.getHeader(HttpHeaders.ACCEPT));
+		}
+		
+		// the version is only looked up for clients holding an ETag, cars are not loaded when it matches
+		private boolean conditional() {
+			return ifNoneMatch != null;
+		}
+		
+		// strong tags differ between the JSON, CBOR and Smile representations of a version
+		private String eTag(String version) {
+			return CarRest.eTag(version + variant);
+		}
+		
+		// weak comparison, as for a GET
+		private boolean matches(String eTag) {
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if(tag.startsWith("W/"))
+					tag = tag.substring(2);
+				if(tag.equals("*") || tag.equals(eTag))
+					return true;
+			}
+			return false;
+		}
+	}
+	
+	// content of a full representation page
+	@SuppressWarnings("unchecked")
+	private static List<Car> cars(Slice<?> slice) {
+		return (List<Car>) slice.getContent();
+	}
+
+	@ApiOperation(value = "Export cars", notes = "Stream all cars matching the filters as NDJSON (default), CSV, or a sequence of CBOR or Smile values, in id order")
+	@GetMapping(value = "export", produces = {ApiRest.NDJSON_VALUE, ApiRest.CSV_VALUE, ApiRest.CBOR_VALUE, ApiRest.SMILE_VALUE})
+	public void exportCars(
+			@ApiIgnore @QuerydslPredicate(root = Car.class) Predicate predicate,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			HttpServletResponse response) throws IOException {
+		// one of the produces types is acceptable, checked by the mapping
+		MediaType type = negotiate(accept, NDJSON, CSV, CBOR, SMILE);
+		response.setContentType(type.toString());
+		if(type == NDJSON || type == CSV)
+			response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		
+		try {
+			if(type == CSV)
+				exportCsv(predicate, response.getOutputStream());
+			else if(type == CBOR)
+				exportValues(predicate, cborConverter.getObjectMapper(), false, response.getOutputStream());
+			else if(type == SMILE)
+				exportValues(predicate, smileConverter.getObjectMapper(), false, response.getOutputStream());
+			else
+				exportValues(predicate, objectMapper, true, response.getOutputStream());
+		} catch (UncheckedIOException e) {
+			// client gone
+			throw e.getCause();
+		}
+	}
+	
+	// NDJSON with newlines, binary values follow each other (a Smile stream has a single header)
+	private void exportValues(Predicate predicate, ObjectMapper mapper, boolean newlines, OutputStream out) throws IOException {
+		ObjectWriter writer = mapper.writerFor(Car.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+			if(newlines)
+				generator.setRootValueSeparator(null);
+			carService.export(predicate, car -> {
+				try {
+					writer.writeValue(generator, car);
+					if(newlines)
+						generator.writeRaw('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+	
+	private void exportCsv(Predicate predicate, OutputStream out) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+			writer.write(CarCsv.HEADER);
+			writer.write("\r\n");
+			carService.export(predicate, car -> {
+				try {
+					CarCsv.write(writer, car);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+
+	@ApiOperation(value = "Import cars", notes = "Insert the cars of an NDJSON, CSV, CBOR or Smile upload, reporting the rejected rows")
+	@PostMapping(value = "import", consumes = {ApiRest.NDJSON_VALUE, ApiRest.CSV_VALUE, ApiRest.CBOR_VALUE, ApiRest.SMILE_VALUE})
+	@ResponseStatus(HttpStatus.OK)
+	public ImportReport importCars(
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+			HttpServletRequest request) throws IOException {
+		// matched by the mapping, which ignores case and parameters
+		MediaType type = MediaType.parseMediaType(contentType);
+		if(type.isCompatibleWith(CBOR) || type.isCompatibleWith(SMILE)) {
+			ObjectMapper mapper = type.isCompatibleWith(CBOR) ? cborConverter.getObjectMapper() : smileConverter.getObjectMapper();
+			try (JsonParser parser = mapper.getFactory().createParser(request.getInputStream())) {
+				return importRows(CarImportReader.values(parser, mapper.readerFor(Car.class)));
+			}
+		}
+		
+		BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+		CarImportReader rows = type.isCompatibleWith(CSV)
+				? CarImportReader.csv(reader)
+				: CarImportReader.ndjson(reader, objectMapper.readerFor(Car.class));
+		return importRows(rows);
+	}
+	
+	private ImportReport importRows(CarImportReader rows) throws IOException {
+		try {
+			return carService.importCars(rows);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
 	}
 
+	@ApiOperation(value = "View a car", response = Car.class)
 	@GetMapping(value = "{id}")
+	public Object getCar(@PathVariable("id") long id, @ApiIgnore ServletWebRequest webRequest) throws CodeException {
+		webRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		EntityTags tags = new EntityTags(webRequest);
+		return bulkheads.read(() -> {
+			if(tags.conditional()) {
+				String eTag = tags.eTag(carService.findVersion(id));
+				if(tags.matches(eTag)) {
+					return notModified(eTag);
+				}
+			}
+			
+			Car car = carService.findById(id);
+			return ResponseEntity.ok().eTag(tags.eTag(CarVersions.of(car))).body(car);
+		});
+	}
+
+	@ApiImplicitParam(name = "fields", value = "comma separated fields to return, id is always included", required = true, dataType = "string", paramType = "query")
+	@GetMapping(value = "{id}", params = "fields")
 	@ResponseStatus(HttpStatus.OK)
-	public Car getCar(@PathVariable("id") long id) throws EntityNotFoundException {
-		return carService.findById(id);
+	public Object getCarFields(@PathVariable("id") long id, @ApiIgnore @RequestParam("fields") String fields) throws CodeException {
+		CarFields carFields = CarFields.parse(fields);
+		return bulkheads.read(() -> carService.findById(id, carFields));
 	}
 
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
-	public ResponseEntity<String> addCar(@RequestBody Car car) {
-		Car carIns = carService.add(car);
-
-		URI location = ServletUriComponentsBuilder
-				.fromCurrentRequest().path("/{id}")
-				.buildAndExpand(carIns.getId())
-				.toUri();
-		return ResponseEntity.created(location).build();
+	public Object addCar(@RequestBody Car car) throws CodeException {
+		// the current request is only known on the request thread
+		UriComponentsBuilder locationBuilder = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}");
+		return bulkheads.write(() -> {
+			Car carIns = carService.add(car);
+			
+			URI location = locationBuilder
+					.buildAndExpand(carIns.getId())
+					.toUri();
+			return ResponseEntity.created(location).build();
+		});
 	}
 
 	@PutMapping(value = "{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
-	public void updateCar(@PathVariable("id") long id, @RequestBody Car car) throws EntityNotFoundException {
-		carService.update(id, car);
+	public Object updateCar(@PathVariable("id") long id, @RequestBody Car car,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws CodeException {
+		List<String> versions = versions(ifMatch);
+		return bulkheads.write(() -> {
+			if(versions == null) {
+				carService.update(id, car);
+				return ResponseEntity.noContent().build();
+			}
+			return ResponseEntity.noContent().eTag(eTag(carService.update(id, car, versions) + variant(accept))).build();
+		});
+	}
+
+	@PatchMapping(value = "{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE, ApiRest.CBOR_VALUE, ApiRest.SMILE_VALUE})
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public Object patchCar(@PathVariable("id") long id, @RequestBody CarPatch patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws CodeException {
+		List<String> versions = versions(ifMatch);
+		return bulkheads.write(() -> {
+			if(versions == null) {
+				carService.patch(id, patch);
+				return ResponseEntity.noContent().build();
+			}
+			return ResponseEntity.noContent().eTag(eTag(carService.patch(id, patch, versions) + variant(accept))).build();
+		});
 	}
 
 	@DeleteMapping(value = "{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
-	public void deleteCar(@PathVariable("id") long id) throws EntityNotFoundException {
-		carService.deleteById(id);
+	public Object deleteCar(@PathVariable("id") long id,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws CodeException {
+		List<String> versions = versions(ifMatch);
+		return bulkheads.write(() -> {
+			if(versions == null)
+				carService.deleteById(id);
+			else
+				carService.deleteById(id, versions);
+			return ResponseEntity.noContent().build();
+		});
+	}
+
+	// If-Match entity tags without quotes nor representation suffix, null when absent or *,
+	// weak tags never match a write
+	private static List<String> versions(String ifMatch) {
+		if(ifMatch == null || ifMatch.trim().equals("*"))
+			return null;
+		
+		List<String> versions = new ArrayList<>();
+		for (String tag : ifMatch.split(",")) {
+			tag = tag.trim();
+			if(tag.length() > 1 && tag.charAt(0) == '"' && tag.charAt(tag.length() - 1) == '"') {
+				int variant = tag.indexOf('+');
+				versions.add(tag.substring(1, variant < 0 ? tag.length() - 1 : variant));
+			}
+		}
+		return versions;
 	}
 
 }
@@ -0,0 +1,140 @@
+package com.rest.api.web;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Link and Pagination-* headers of the list responses.
+ * <p/>
+ * The request URI without its paging parameters is built once per response (forwarded headers honored)
+ * on the request thread, the links append their page or cursor and size to it in a single header buffer.
+ * The headers go to the response entity, never to the servlet response of a bulkhead task.
+ * Totals are unknown for slices and keyset pages.
+ */
+public final class PaginationHeaders {
+
+	private PaginationHeaders() {
+	}
+
+	// base of the page and slice links
+	public static String pageBase(HttpServletRequest request) {
+		return baseUri(request, "page", "size");
+	}
+
+	// base of the keyset links, the page parameter has no meaning with a cursor
+	public static String keysetBase(HttpServletRequest request) {
+		return baseUri(request, "page", "after", "size");
+	}
+
+	// estimated totals are flagged by Pagination-Total-Count-Estimated
+	public static void writePage(HttpHeaders headers, String base, long totalCount, int page, int totalPages, int pageSize, boolean estimated) {
+		StringBuilder link = new StringBuilder(4 * (base.length() + 40));
+		if (page < totalPages - 1) {
+			pageLink(link, base, page + 1, pageSize, "next");
+		}
+		if (page > 0) {
+			pageLink(link, base, page - 1, pageSize, "prev");
+			pageLink(link, base, 0, pageSize, "first");
+		}
+		if (totalPages > 1 && page < totalPages - 1) {
+			pageLink(link, base, totalPages - 1, pageSize, "last");
+		}
+
+		headers.add("Pagination-Total-Count", Long.toString(totalCount));
+		headers.add("Pagination-Page", Integer.toString(page));
+		headers.add("Pagination-Page-Count", Integer.toString(totalPages));
+		headers.add("Pagination-Limit", Integer.toString(pageSize));
+		headers.add(HttpHeaders.LINK, link.toString());
+		if (estimated) {
+			headers.add("Pagination-Total-Count-Estimated", "true");
+		}
+	}
+
+	// without totals only next, prev and first links are known
+	public static void writeSlice(HttpHeaders headers, String base, int page, int pageSize, boolean hasNext) {
+		StringBuilder link = new StringBuilder(3 * (base.length() + 40));
+		if (hasNext) {
+			pageLink(link, base, page + 1, pageSize, "next");
+		}
+		if (page > 0) {
+			pageLink(link, base, page - 1, pageSize, "prev");
+			pageLink(link, base, 0, pageSize, "first");
+		}
+
+		headers.add("Pagination-Page", Integer.toString(page));
+		headers.add("Pagination-Limit", Integer.toString(pageSize));
+		headers.add(HttpHeaders.LINK, link.toString());
+	}
+
+	// nextCursor null on the last page
+	public static void writeKeyset(HttpHeaders headers, String base, String nextCursor, boolean firstPage, int pageSize) {
+		StringBuilder link = new StringBuilder(2 * (base.length() + 80));
+		if (nextCursor != null) {
+			cursorLink(link, base, UriUtils.encodeQueryParam(nextCursor, StandardCharsets.UTF_8), pageSize, "next");
+		}
+		if (!firstPage) {
+			cursorLink(link, base, "", pageSize, "first");
+		}
+
+		headers.add("Pagination-Limit", Integer.toString(pageSize));
+		headers.add(HttpHeaders.LINK, link.toString());
+	}
+
+	private static void pageLink(StringBuilder link, String base, int page, int size, String rel) {
+		open(link, base).append("page=").append(page);
+		close(link, size, rel);
+	}
+
+	private static void cursorLink(StringBuilder link, String base, String cursor, int size, String rel) {
+		open(link, base).append("after=").append(cursor);
+		close(link, size, rel);
+	}
+
+	private static StringBuilder open(StringBuilder link, String base) {
+		if (link.length() > 0) {
+			link.append(", ");
+		}
+		return link.append('<').append(base);
+	}
+
+	private static void close(StringBuilder link, int size, String rel) {
+		link.append("&size=").append(size).append(">; rel=\"").append(rel).append('"');
+	}
+
+	// request URI ending with '?' or '&', the query kept as sent minus the paging parameters
+	static String baseUri(HttpServletRequest request, String... paging) {
+		StringBuilder uri = new StringBuilder(ServletUriComponentsBuilder.fromRequestUri(request).build().toUriString()).append('?');
+		String query = request.getQueryString();
+		if (query != null) {
+			int start = 0;
+			while (start < query.length()) {
+				int end = query.indexOf('&', start);
+				if (end < 0) {
+					end = query.length();
+				}
+				if (end > start && !isPaging(query, start, end, paging)) {
+					uri.append(query, start, end).append('&');
+				}
+				start = end + 1;
+			}
+		}
+		return uri.toString();
+	}
+
+	private static boolean isPaging(String query, int start, int end, String[] paging) {
+		int equals = query.indexOf('=', start);
+		int nameEnd = equals < 0 || equals > end ? end : equals;
+		for (String name : paging) {
+			if (nameEnd - start == name.length() && query.startsWith(name, start)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -2,11 +2,13 @@ package com.rest.api.web.handler;
 
 import java.util.Locale;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.transaction.TransactionSystemException;
@@ -17,7 +19,11 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.rest.api.exception.BulkheadFullException;
+import com.rest.api.exception.CarModifiedException;
 import com.rest.api.exception.CarNotFoundException;
+import com.rest.api.exception.InvalidCursorException;
+import com.rest.api.exception.InvalidFieldsException;
 import com.rest.api.exception.ResourceNotFoundException;
 import com.rest.api.model.error.Error;
 import com.rest.api.model.error.FieldError;
@@ -51,12 +57,42 @@ public class ControllerAdvice {
 		return new Error(ex.getCode(),  messageSource.getMessage(ex.getMessage(), null, locale));
 	}
 
+	@ResponseBody
+	@ExceptionHandler(CarModifiedException.class)
+	@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+	public Error handleCarModified(CarModifiedException ex, Locale locale) {
+		return new Error(ex.getCode(),  messageSource.getMessage(ex.getMessage(), null, locale));
+	}
+
+	// rejected before any work, worth retrying soon
+	@ResponseBody
+	@ExceptionHandler(BulkheadFullException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public Error handleBulkheadFull(BulkheadFullException ex, Locale locale, HttpServletResponse response) {
+		response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+		return new Error(ex.getCode(),  messageSource.getMessage(ex.getMessage(), null, locale));
+	}
+
+	@ResponseBody
+	@ExceptionHandler(InvalidCursorException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public Error handleInvalidCursor(InvalidCursorException ex, Locale locale) {
+		return new Error(ex.getCode(),  messageSource.getMessage(ex.getMessage(), null, locale));
+	}
+
+	@ResponseBody
+	@ExceptionHandler(InvalidFieldsException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public Error handleInvalidFields(InvalidFieldsException ex, Locale locale) {
+		return new Error(ex.getCode(),  messageSource.getMessage(ex.getMessage(), null, locale));
+	}
+
 	@ResponseBody
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ValidationError handleMethodArgumentNotValid(MethodArgumentNotValidException ex, Locale locale) {
 		BindingResult result = ex.getBindingResult();
-		ValidationError ve = new ValidationError(100, messageSource.getMessage(VALIDATION_ERROR, null, locale));
+		ValidationError ve = new ValidationError(ValidationError.CODE, messageSource.getMessage(VALIDATION_ERROR, null, locale));
 		
 		for (org.springframework.validation.FieldError oe : result.getFieldErrors()) {
 			ve.addFieldError(new FieldError(1, oe.getField(), messageSource.getMessage(oe, locale)));
@@ -69,7 +105,7 @@ public class ControllerAdvice {
 	@ExceptionHandler(ConstraintViolationException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ValidationError handleConstraintViolationException(ConstraintViolationException ex, Locale locale) {
-		ValidationError ve = new ValidationError(100, messageSource.getMessage(VALIDATION_ERROR, null, locale));
+		ValidationError ve = new ValidationError(ValidationError.CODE, messageSource.getMessage(VALIDATION_ERROR, null, locale));
 		String field = "";
 		int index;
 		
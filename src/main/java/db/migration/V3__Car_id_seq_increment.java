@@ -0,0 +1,87 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.jdbc.JdbcMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CAR_ID_SEQ with the increment of the pooled-lo Car id generator.
+ * <p/>
+ * Databases created before versioned migrations are baselined at V1 without running it, their sequence
+ * kept INCREMENT BY 1 (<code>allocationSize = 1</code>): the generator would read overlapping blocks.
+ * The sequence is recreated above the ids in CAR and above the block of its next value, Derby has no
+ * ALTER SEQUENCE. Nothing changes on databases created by V1.
+ * <p/>
+ * The increment is read from INFORMATION_SCHEMA.SEQUENCES on databases other than Derby, the sequence is only
+ * recreated on Derby and H2: elsewhere a wrong increment, or one that cannot be read, is logged and left as is.
+ */
+public class V3__Car_id_seq_increment implements JdbcMigration {
+
+	private static final Logger LOG = LoggerFactory.getLogger(V3__Car_id_seq_increment.class);
+
+	// increment_size of the Car id generator
+	private static final int INCREMENT = 50;
+
+	@Override
+	public void migrate(Connection connection) throws Exception {
+		String product = connection.getMetaData().getDatabaseProductName();
+		boolean derby = product.startsWith("Apache Derby");
+		Long increment = increment(connection, derby);
+		if (increment == null || increment == INCREMENT) {
+			return;
+		}
+		if (!derby && !product.startsWith("H2")) {
+			LOG.warn("CAR_ID_SEQ has INCREMENT BY {} on {}, not recreated: recreate it with INCREMENT BY {} above the ids in CAR",
+					increment, product, INCREMENT);
+			return;
+		}
+
+		try (Statement statement = connection.createStatement()) {
+			// ids handed out with the old increment stay below the next value plus one block
+			long next = value(statement.executeQuery(derby ? "VALUES NEXT VALUE FOR CAR_ID_SEQ" : "SELECT NEXT VALUE FOR CAR_ID_SEQ"));
+			long maxId = value(statement.executeQuery("SELECT COALESCE(MAX(ID), 0) FROM CAR"));
+			long start = Math.max(maxId + 1, next + INCREMENT);
+
+			statement.execute(derby ? "DROP SEQUENCE CAR_ID_SEQ RESTRICT" : "DROP SEQUENCE CAR_ID_SEQ");
+			statement.execute("CREATE SEQUENCE CAR_ID_SEQ" + (derby ? " AS BIGINT" : "")
+					+ " START WITH " + start + " INCREMENT BY " + INCREMENT);
+		}
+	}
+
+	// SYS.SYSSEQUENCES on Derby, the standard INFORMATION_SCHEMA.SEQUENCES elsewhere, null (logged) if not readable
+	private static Long increment(Connection connection, boolean derby) {
+		String query = derby
+				? "SELECT S.INCREMENT FROM SYS.SYSSEQUENCES S JOIN SYS.SYSSCHEMAS C ON S.SCHEMAID = C.SCHEMAID "
+						+ "WHERE S.SEQUENCENAME = 'CAR_ID_SEQ' AND C.SCHEMANAME = ?"
+				: "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES "
+						+ "WHERE UPPER(SEQUENCE_NAME) = 'CAR_ID_SEQ' AND UPPER(SEQUENCE_SCHEMA) = UPPER(?)";
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, connection.getSchema());
+			try (ResultSet rs = statement.executeQuery()) {
+				if (rs.next()) {
+					return rs.getLong(1);
+				}
+			}
+			LOG.warn("CAR_ID_SEQ not found in schema {}, increment not checked: it must be INCREMENT BY {}", connection.getSchema(), INCREMENT);
+		} catch (SQLException e) {
+			LOG.warn("CAR_ID_SEQ increment not checked ({}): it must be INCREMENT BY {}", e.getMessage(), INCREMENT);
+		}
+		return null;
+	}
+
+	private static long value(ResultSet resultSet) throws SQLException {
+		try (ResultSet rs = resultSet) {
+			if (!rs.next()) {
+				throw new IllegalStateException("CAR_ID_SEQ not found");
+			}
+			return rs.getLong(1);
+		}
+	}
+
+}
@@ -0,0 +1,14 @@
+-- baseline: CAR as created before versioned migrations, existing databases are baselined at this version
+-- pooled-lo ids: INCREMENT BY must match the Car id generator increment_size
+CREATE SEQUENCE CAR_ID_SEQ AS BIGINT START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE CAR (
+	ID BIGINT NOT NULL,
+	BRAND VARCHAR(10),
+	MODEL VARCHAR(10),
+	VERSION INTEGER,
+	PRICE DECIMAL(10,2),
+	INSERT_DATE TIMESTAMP,
+	UPDATE_DATE TIMESTAMP,
+	PRIMARY KEY (ID)
+);
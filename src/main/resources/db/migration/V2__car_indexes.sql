@@ -0,0 +1,7 @@
+-- one index per filter / sort key, id as trailing column:
+-- equality filters (findByBrand, findByModel, findByVersion, querydsl bindings) return rows in id order,
+-- keyset pages seek on (sort key, id) without sorting
+CREATE INDEX CAR_BRAND_IDX ON CAR (BRAND, ID);
+CREATE INDEX CAR_MODEL_IDX ON CAR (MODEL, ID);
+CREATE INDEX CAR_VERSION_IDX ON CAR (VERSION, ID);
+CREATE INDEX CAR_PRICE_IDX ON CAR (PRICE, ID);
@@ -0,0 +1,53 @@
+package com.rest.api.test.data;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Properties;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.jcache.JCacheRegionFactory;
+import org.hibernate.cache.spi.EntityRegion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rest.api.data.BoundedJCacheRegionFactory;
+
+/**
+ * Region factories of two session factories using the same ehcache.xml, as in two test contexts.
+ */
+public class BoundedJCacheRegionFactoryTest {
+
+	private final Properties properties = new Properties();
+	private final BoundedJCacheRegionFactory first = new BoundedJCacheRegionFactory();
+	private final BoundedJCacheRegionFactory second = new BoundedJCacheRegionFactory();
+
+	@Before
+	public void setup() {
+		properties.setProperty(JCacheRegionFactory.PROVIDER, "org.ehcache.jsr107.EhcacheCachingProvider");
+		properties.setProperty(JCacheRegionFactory.CONFIG_URI, "classpath:ehcache.xml");
+		first.start(null, properties);
+		second.start(null, properties);
+	}
+
+	@After
+	public void stop() {
+		second.stop();
+	}
+
+	@Test
+	public void stopKeepsOtherFactoryManager() {
+		first.stop();
+
+		EntityRegion region = second.buildEntityRegion("com.rest.api.model.Car", properties, null);
+
+		assertThat(region.getName(), equalTo("com.rest.api.model.Car"));
+	}
+
+	@Test(expected = CacheException.class)
+	public void unconfiguredRegion() {
+		second.buildEntityRegion("com.rest.api.model.Unknown", properties, null);
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.rest.api.test.data;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rest.api.data.CarRepository;
+import com.rest.api.model.Car;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class CarCacheTest {
+
+	@Autowired
+	private CarRepository carRepository;
+	
+	@Autowired
+	private TestEntityManager entityManager;
+	
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	
+	private Statistics statistics;
+	
+	@Before
+	public void setup() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		entityManagerFactory.getCache().evictAll();
+		statistics.clear();
+	}
+	
+	@Test
+	// a cached entity is readable only by later transactions
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void getCarFromCache() {
+		carRepository.findById(3L).get();
+		
+		Car car = carRepository.findById(3L).get();
+		assertThat(car.getBrand(), equalTo("Mercedes"));
+		
+		SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(Car.class.getName());
+		assertThat(region.getMissCount(), equalTo(1L));
+		assertThat(region.getHitCount(), equalTo(1L));
+	}
+	
+	@Test
+	public void listCarsFromQueryCache() {
+		carRepository.findByBrand("BMW", PageRequest.of(0, 10));
+		entityManager.clear();
+		
+		Page<Car> page = carRepository.findByBrand("BMW", PageRequest.of(0, 10));
+		assertThat(page.getContent().size(), equalTo(1));
+		
+		SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(CarRepository.QUERY_CACHE_REGION);
+		assertThat(region.getHitCount(), equalTo(statistics.getQueryCacheHitCount()));
+		assertThat(statistics.getQueryCacheHitCount() > 0, equalTo(true));
+	}
+	
+	@Test
+	public void updateInvalidatesCache() {
+		carRepository.findById(1L).get();
+		carRepository.findByBrand("BMW", PageRequest.of(0, 10));
+		carRepository.findByModel("320d", PageRequest.of(0, 10));
+		carRepository.findByVersion(1, PageRequest.of(0, 10));
+		entityManager.clear();
+		
+		// detached update, as CarServiceImpl.update
+		Car update = new Car(1, "BMW", "330d", 2, new BigDecimal("45000.00"), null, null);
+		carRepository.save(update);
+		entityManager.flush();
+		entityManager.clear();
+		
+		assertThat(carRepository.findById(1L).get().getModel(), equalTo("330d"));
+		assertThat(carRepository.findByBrand("BMW", PageRequest.of(0, 10)).getContent().get(0).getModel(), equalTo("330d"));
+		assertThat(carRepository.findByModel("320d", PageRequest.of(0, 10)).getTotalElements(), equalTo(0L));
+		assertThat(carRepository.findByVersion(1, PageRequest.of(0, 10)).getTotalElements(), equalTo(0L));
+	}
+	
+	@Test
+	public void deleteInvalidatesCache() {
+		carRepository.findById(2L).get();
+		carRepository.findByBrand("Audi", PageRequest.of(0, 10));
+		entityManager.clear();
+		
+		carRepository.deleteById(2L);
+		entityManager.flush();
+		entityManager.clear();
+		
+		assertThat(carRepository.findById(2L).isPresent(), equalTo(false));
+		assertThat(carRepository.findByBrand("Audi", PageRequest.of(0, 10)).getTotalElements(), equalTo(0L));
+	}
+
+}
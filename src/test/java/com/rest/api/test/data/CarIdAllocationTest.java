@@ -0,0 +1,143 @@
+package com.rest.api.test.data;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.NoopOptimizer;
+import org.hibernate.id.enhanced.Optimizer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.rest.api.data.CarRepository;
+import com.rest.api.data.ConcurrentPooledLoOptimizer;
+import com.rest.api.model.Car;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class CarIdAllocationTest {
+
+	private static final int INCREMENT = 50;
+	private static final int ROWS = 2000;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Test
+	public void addCarUsesPooledIds() {
+		Car first = carRepository.save(new Car(0, "Brand", "Model", 1, new BigDecimal("1000.00"), null, null));
+		Car second = carRepository.save(new Car(0, "Brand", "Model", 1, new BigDecimal("1000.00"), null, null));
+
+		// same block, no round trip in between
+		assertThat(second.getId(), equalTo(first.getId() + 1));
+	}
+
+	@Test
+	public void concurrentNodesNeverShareIds() throws Exception {
+		// two nodes sharing the same sequence
+		AtomicLong sequence = new AtomicLong(1);
+		Optimizer node1 = new ConcurrentPooledLoOptimizer(Long.class, INCREMENT);
+		Optimizer node2 = new ConcurrentPooledLoOptimizer(Long.class, INCREMENT);
+		AtomicInteger roundTrips = new AtomicInteger();
+		AccessCallback callback = callback(() -> {
+			roundTrips.incrementAndGet();
+			return sequence.getAndAdd(INCREMENT);
+		});
+
+		int threads = 8, idsPerThread = 10000;
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			Optimizer node = t % 2 == 0 ? node1 : node2;
+			executor.execute(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < idsPerThread; i++) {
+						ids.add((Long) node.generate(callback));
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		assertThat(ids.size(), equalTo(threads * idsPerThread));
+		// at most one partially used block per node
+		assertThat(roundTrips.get(), lessThanOrEqualTo(threads * idsPerThread / INCREMENT + 2));
+	}
+
+	@Test
+	public void insertRoundTrips() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+		int noopRoundTrips = insertCars(jdbcTemplate, new NoopOptimizer(Long.class, 1), ROWS);
+		int pooledRoundTrips = insertCars(jdbcTemplate, new ConcurrentPooledLoOptimizer(Long.class, INCREMENT), ROWS);
+
+		assertThat(noopRoundTrips, equalTo(ROWS));
+		assertThat(pooledRoundTrips, lessThanOrEqualTo(ROWS / INCREMENT + 1));
+	}
+
+	// one sequence call per id (allocationSize = 1) vs one per block, throughput in CarIdAllocationBenchmark
+	private int insertCars(JdbcTemplate jdbcTemplate, Optimizer optimizer, int rows) {
+		AtomicInteger roundTrips = new AtomicInteger();
+		AccessCallback callback = callback(() -> {
+			roundTrips.incrementAndGet();
+			return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR CAR_ID_SEQ", Long.class);
+		});
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+
+		for (int i = 0; i < rows; i++) {
+			Serializable id = optimizer.generate(callback);
+			jdbcTemplate.update("INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (?, ?, ?, ?, ?, ?, ?)",
+					id, "Brand", "Model", 0, new BigDecimal("1000.00"), now, now);
+		}
+		return roundTrips.get();
+	}
+
+	private static AccessCallback callback(SequenceSource source) {
+		return new AccessCallback() {
+			@Override
+			public IntegralDataTypeHolder getNextValue() {
+				return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(source.next());
+			}
+
+			@Override
+			public String getTenantIdentifier() {
+				return null;
+			}
+		};
+	}
+
+	private interface SequenceSource {
+		long next();
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.rest.api.test.data;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+
+import org.flywaydb.core.Flyway;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import db.migration.V3__Car_id_seq_increment;
+
+/**
+ * CAR_ID_SEQ after the migrations on embedded Derby, for databases created by them and databases created before
+ * them (baselined at V1, sequence INCREMENT BY 1), and on H2 where the increment is read from INFORMATION_SCHEMA.
+ */
+public class CarIdSequenceMigrationTest {
+
+	private static final String CREATE_CAR = "CREATE TABLE CAR (ID BIGINT NOT NULL, BRAND VARCHAR(10), MODEL VARCHAR(10), VERSION INTEGER, "
+			+ "PRICE DECIMAL(10,2), INSERT_DATE TIMESTAMP, UPDATE_DATE TIMESTAMP, PRIMARY KEY (ID))";
+
+	@Test
+	public void createdByMigrations() {
+		JdbcTemplate jdbcTemplate = database("created");
+		migrate(jdbcTemplate);
+
+		assertThat(increment(jdbcTemplate), equalTo(50L));
+		assertThat(next(jdbcTemplate), equalTo(1L));
+	}
+
+	@Test
+	public void baselinedAboveHandedOutBlock() {
+		JdbcTemplate jdbcTemplate = baselined("baselined-block", 5);
+		// a pooled-lo node may hold [7, 57)
+		for (int i = 0; i < 2; i++) {
+			next(jdbcTemplate);
+		}
+		migrate(jdbcTemplate);
+
+		assertThat(increment(jdbcTemplate), equalTo(50L));
+		assertThat(next(jdbcTemplate), equalTo(58L));
+		assertThat(next(jdbcTemplate), equalTo(108L));
+	}
+
+	@Test
+	public void baselinedAboveMaxId() {
+		JdbcTemplate jdbcTemplate = baselined("baselined-ids", 5);
+		insert(jdbcTemplate, 1000);
+		migrate(jdbcTemplate);
+
+		assertThat(increment(jdbcTemplate), equalTo(50L));
+		assertThat(next(jdbcTemplate), equalTo(1001L));
+	}
+
+	@Test
+	public void baselinedOnH2() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:baselined;DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("CREATE SEQUENCE CAR_ID_SEQ START WITH 1");
+		jdbcTemplate.execute(CREATE_CAR);
+		insert(jdbcTemplate, 1000);
+		migrate(jdbcTemplate);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'CAR_ID_SEQ'", Long.class),
+				equalTo(50L));
+		assertThat(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR CAR_ID_SEQ", Long.class), equalTo(1001L));
+	}
+
+	@Test
+	public void otherDatabaseNotRecreated() throws Exception {
+		Connection connection = mock(Connection.class, RETURNS_DEEP_STUBS);
+		given(connection.getMetaData().getDatabaseProductName()).willReturn("PostgreSQL");
+		given(connection.prepareStatement(anyString()).executeQuery().next()).willReturn(true);
+		given(connection.prepareStatement(anyString()).executeQuery().getLong(1)).willReturn(1L);
+
+		new V3__Car_id_seq_increment().migrate(connection);
+
+		// logged, the migration goes on
+		verify(connection, never()).createStatement();
+	}
+
+	// CAR and CAR_ID_SEQ as before the migrations, rows inserted with sequence ids
+	private static JdbcTemplate baselined(String name, int rows) {
+		JdbcTemplate jdbcTemplate = database(name);
+		jdbcTemplate.execute("CREATE SEQUENCE CAR_ID_SEQ AS BIGINT START WITH 1");
+		jdbcTemplate.execute(CREATE_CAR);
+		for (int i = 0; i < rows; i++) {
+			insert(jdbcTemplate, next(jdbcTemplate));
+		}
+		return jdbcTemplate;
+	}
+
+	private static JdbcTemplate database(String name) {
+		return new JdbcTemplate(new DriverManagerDataSource("jdbc:derby:memory:" + name + ";create=true", "app", "app"));
+	}
+
+	private static void migrate(JdbcTemplate jdbcTemplate) {
+		Flyway flyway = new Flyway();
+		flyway.setDataSource(jdbcTemplate.getDataSource());
+		flyway.setBaselineOnMigrate(true);
+		flyway.setBaselineVersionAsString("1");
+		flyway.migrate();
+	}
+
+	private static void insert(JdbcTemplate jdbcTemplate, long id) {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		jdbcTemplate.update("INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (?, 'Brand', 'Model', 0, 1000.00, ?, ?)",
+				id, now, now);
+	}
+
+	private static long next(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForObject("VALUES NEXT VALUE FOR CAR_ID_SEQ", Long.class);
+	}
+
+	private static long increment(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForObject("SELECT INCREMENT FROM SYS.SYSSEQUENCES WHERE SEQUENCENAME = 'CAR_ID_SEQ'", Long.class);
+	}
+
+}
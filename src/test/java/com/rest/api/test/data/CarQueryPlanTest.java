@@ -0,0 +1,159 @@
+package com.rest.api.test.data;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.rest.api.data.CarRepository;
+import com.rest.api.model.Car;
+import com.rest.api.model.QCar;
+import com.rest.api.service.CarCursor;
+
+/**
+ * Plans of the CarRepository queries on embedded Derby, the production engine.
+ * <p/>
+ * The schema is created by the Flyway migrations, every statement is recorded with
+ * Derby XPLAIN and must reach CAR through the expected index, never a table scan.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@TestPropertySource(properties = {
+		"spring.datasource.driver-class-name=org.apache.derby.jdbc.EmbeddedDriver",
+		"spring.datasource.url=jdbc:derby:memory:plans;create=true",
+		"spring.datasource.username=app",
+		"spring.datasource.password=app",
+		"spring.datasource.initialization-mode=never",
+		"spring.jpa.hibernate.ddl-auto=none",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.DerbyTenSevenDialect",
+		// plans of the database, not of the caches
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+public class CarQueryPlanTest {
+
+	private static final int ROWS = 20000;
+	private static final int BRANDS = 50;
+
+	private static boolean populated;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Before
+	public void setup() throws Exception {
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		if (!populated) {
+			populate();
+			populated = true;
+		}
+	}
+
+	@Test
+	public void findByBrand() {
+		List<String> scans = scans(() -> carRepository.findByBrand("B7", PageRequest.of(0, 10, Sort.by("id"))));
+		assertIndexScan(scans, "CAR_BRAND_IDX");
+	}
+
+	@Test
+	public void findByModel() {
+		List<String> scans = scans(() -> carRepository.findByModel("M7", PageRequest.of(0, 10)));
+		assertIndexScan(scans, "CAR_MODEL_IDX");
+	}
+
+	@Test
+	public void findByVersion() {
+		List<String> scans = scans(() -> carRepository.findByVersion(7, PageRequest.of(0, 10, Sort.by("id"))));
+		assertIndexScan(scans, "CAR_VERSION_IDX");
+	}
+
+	@Test
+	public void listCarsByBrand() {
+		List<String> scans = scans(() -> carRepository.findSlice(QCar.car.brand.eq("B7"), PageRequest.of(0, 10, Sort.by("id"))));
+		assertIndexScan(scans, "CAR_BRAND_IDX");
+	}
+
+	@Test
+	public void listCarsByPriceKeyset() throws Exception {
+		Car last = new Car(ROWS / 2, "B0", "M0", 0, new BigDecimal("5000.00"), null, null);
+		CarCursor cursor = CarCursor.after(last, Sort.by("price"));
+		List<String> scans = scans(() -> carRepository.findSlice(cursor.toPredicate(), PageRequest.of(0, 10, cursor.getSort())));
+		assertIndexScan(scans, "CAR_PRICE_IDX");
+	}
+
+	private static void assertIndexScan(List<String> scans, String index) {
+		assertThat(scans, hasItem(index));
+		assertThat(scans, everyItem(not("TABLE")));
+	}
+
+	// scanned index of every CAR access ("TABLE" for a heap scan), same connection as the repository
+	private List<String> scans(Runnable query) {
+		jdbcTemplate.execute("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(1)");
+		jdbcTemplate.execute("CALL SYSCS_UTIL.SYSCS_SET_XPLAIN_SCHEMA('PLANS')");
+		jdbcTemplate.execute("DELETE FROM PLANS.SYSXPLAIN_SCAN_PROPS");
+		query.run();
+		jdbcTemplate.execute("CALL SYSCS_UTIL.SYSCS_SET_XPLAIN_SCHEMA('')");
+		jdbcTemplate.execute("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(0)");
+
+		return jdbcTemplate.queryForList(
+				"SELECT CASE WHEN SCAN_OBJECT_TYPE = 'T' THEN 'TABLE' ELSE SCAN_OBJECT_NAME END FROM PLANS.SYSXPLAIN_SCAN_PROPS "
+				+ "WHERE SCAN_OBJECT_NAME = 'CAR' OR SCAN_OBJECT_NAME LIKE 'CAR\\_%' ESCAPE '\\'", String.class);
+	}
+
+	// committed outside the test transaction, statistics refreshed for the optimizer
+	private void populate() throws Exception {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement insert = connection.prepareStatement(
+					"INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+				for (int i = 1; i <= ROWS; i++) {
+					insert.setLong(1, i);
+					insert.setString(2, "B" + i % BRANDS);
+					insert.setString(3, "M" + i % (BRANDS * 2));
+					insert.setInt(4, i % BRANDS);
+					insert.setBigDecimal(5, BigDecimal.valueOf(i % 10000, 0).add(new BigDecimal("0.50")));
+					insert.setTimestamp(6, now);
+					insert.setTimestamp(7, now);
+					insert.addBatch();
+					if (i % 1000 == 0) {
+						insert.executeBatch();
+					}
+				}
+			}
+			connection.commit();
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CALL SYSCS_UTIL.SYSCS_UPDATE_STATISTICS('APP', 'CAR', NULL)");
+			}
+			connection.commit();
+		}
+	}
+
+}
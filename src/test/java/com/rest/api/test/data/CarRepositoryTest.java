@@ -1,25 +1,53 @@
 package com.rest.api.test.data;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.querydsl.core.Tuple;
 import com.rest.api.data.CarRepository;
 import com.rest.api.model.Car;
+import com.rest.api.model.CarPatch;
 import com.rest.api.model.QCar;
+import com.rest.api.service.CarCursor;
+import com.rest.api.service.CarFields;
+import com.rest.api.service.CarVersions;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
@@ -28,6 +56,18 @@ public class CarRepositoryTest {
 	@Autowired
 	private CarRepository carRepository;
 	
+	@Autowired
+	private DataSource dataSource;
+	
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	
+	@Autowired
+	private TestEntityManager entityManager;
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
 	@Test
 	public void getCar() throws Exception {
 		Car car = carRepository.findById(3L).get();
@@ -174,6 +214,49 @@ public class CarRepositoryTest {
 		}
 	}
 	
+	@Test
+	public void listCarsSliced() {
+		Slice<Car> carSlice = carRepository.findSlice(QCar.car.version.eq(0), PageRequest.of(0, 2, Sort.by("price").ascending()));
+
+		assertThat(carSlice.getContent().size(), equalTo(2));
+		assertThat(carSlice.hasNext(), equalTo(true));
+		assertThat("Fiat", equalTo(carSlice.getContent().get(0).getBrand()));
+		assertThat("VW", equalTo(carSlice.getContent().get(1).getBrand()));
+		
+		// last page
+		carSlice = carRepository.findSlice(QCar.car.version.eq(0), PageRequest.of(1, 2, Sort.by("price").ascending()));
+		assertThat(carSlice.getContent().size(), equalTo(2));
+		assertThat(carSlice.hasNext(), equalTo(false));
+	}
+	
+	@Test
+	public void listCarsSlicedFields() throws Exception {
+		CarFields fields = CarFields.parse("brand,price");
+		entityManager.clear();
+		Slice<Tuple> tupleSlice = carRepository.findSlice(QCar.car.version.eq(0), PageRequest.of(0, 2, Sort.by("price").ascending()), fields.getColumns());
+
+		assertThat(tupleSlice.getContent().size(), equalTo(2));
+		assertThat(tupleSlice.hasNext(), equalTo(true));
+		Map<String, Object> fiat = fields.toMap(tupleSlice.getContent().get(0));
+		assertThat(fiat.keySet(), contains("id", "brand", "price"));
+		assertThat(fiat.get("brand"), equalTo("Fiat"));
+		
+		// projections are not attached to the persistence context
+		assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount(), equalTo(0));
+		assertThat(carRepository.findColumnsById(99L, fields.getColumns()), nullValue());
+	}
+	
+	@Test
+	public void listCarsAfterCursor() throws Exception {
+		Car fiat = carRepository.findById(4L).get();
+		CarCursor cursor = CarCursor.after(fiat, Sort.by("price"));
+		List<Car> carList = carRepository.findSlice(cursor.toPredicate(), PageRequest.of(0, 2, cursor.getSort())).getContent();
+
+		assertThat(carList.size(), equalTo(2));
+		assertThat("VW", equalTo(carList.get(0).getBrand()));
+		assertThat("Mercedes", equalTo(carList.get(1).getBrand()));
+	}
+	
 	@Test
 	public void addCar() throws Exception {
 		Car car = new Car(6, "Brand", "Model", 1, new BigDecimal("1000.00"), null, null);
@@ -206,6 +289,45 @@ public class CarRepositoryTest {
 		assertThat(car.getPrice(), equalTo(upd.getPrice()));
 	}
 
+	@Test
+	public void streamCars() {
+		List<Long> ids = new ArrayList<>();
+		carRepository.forEach(QCar.car.version.eq(0), car -> ids.add(car.getId()));
+		assertThat(ids, equalTo(Arrays.asList(2L, 3L, 4L, 5L)));
+	}
+	
+	@Test
+	public void patchCar() {
+		CarPatch patch = new CarPatch();
+		patch.setModel(Optional.of("Model"));
+		patch.setPrice(Optional.of(new BigDecimal("1000.00")));
+		
+		assertThat(carRepository.patch(2L, patch, ZonedDateTime.now(), null), equalTo(1L));
+		
+		Car upd = carRepository.findById(2L).get();
+		assertThat(upd.getBrand(), equalTo("Audi"));
+		assertThat(upd.getModel(), equalTo("Model"));
+		assertThat(upd.getVersion(), equalTo(0));
+		assertThat(upd.getPrice(), equalTo(new BigDecimal("1000.00")));
+	}
+	
+	@Test
+	public void updateCarIfMatch() {
+		List<String> version = Arrays.asList(CarVersions.of(carRepository.findById(2L).get()));
+		Car car = new Car(2, "Brand", "Model", 1, new BigDecimal("1000.00"), null, ZonedDateTime.now());
+		
+		assertThat(carRepository.update(2L, car, CarVersions.matching(version)), equalTo(1L));
+		// the update date moved on
+		assertThat(carRepository.update(2L, car, CarVersions.matching(version)), equalTo(0L));
+		assertThat(carRepository.delete(2L, CarVersions.matching(version)), equalTo(0L));
+		assertThat(carRepository.delete(2L, CarVersions.matching(Arrays.asList(CarVersions.of(car)))), equalTo(1L));
+	}
+	
+	@Test
+	public void patchCarNotFound() {
+		assertThat(carRepository.patch(99L, new CarPatch(), ZonedDateTime.now(), null), equalTo(0L));
+	}
+
 	@Test
 	public void deleteCar() {
 		carRepository.deleteById(2L);
@@ -216,6 +338,56 @@ public class CarRepositoryTest {
 		carRepository.deleteById(99L);
 	}
 	
+	@Test
+	public void deleteCarById() {
+		assertThat(carRepository.deleteCarById(2L), equalTo(1));
+		assertThat(carRepository.findById(2L).isPresent(), equalTo(false));
+	}
+	
+	@Test
+	public void deleteCarByIdNotFound() {
+		assertThat(carRepository.deleteCarById(99L), equalTo(0));
+	}
+	
+	@Test
+	// each path in its own transaction: entity deletes soft-lock the cached cars, bulk deletes evict them
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void deleteStatements() {
+		long loadAndDelete = deleteCars(ids -> ids.forEach(carRepository::deleteById), 1000);
+		long singleDelete = deleteCars(ids -> ids.forEach(carRepository::deleteCarById), 1000);
+		
+		// SELECT + DELETE vs DELETE, timings in CarDeleteBenchmark
+		assertThat(loadAndDelete, equalTo(2000L));
+		assertThat(singleDelete, equalTo(1000L));
+	}
+	
+	// returns the executed statements, one per DELETE with JDBC batching off, rolled back
+	private long deleteCars(Consumer<List<Long>> delete, int rows) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			status.setRollbackOnly();
+			return deleteCarsInTransaction(delete, rows);
+		});
+	}
+	
+	private long deleteCarsInTransaction(Consumer<List<Long>> delete, int rows) {
+		entityManager.getEntityManager().unwrap(Session.class).setJdbcBatchSize(1);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			long id = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR CAR_ID_SEQ", Long.class);
+			jdbcTemplate.update("INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (?, ?, ?, ?, ?, ?, ?)",
+					id, "Brand", "Model", 0, new BigDecimal("1000.00"), now, now);
+			ids.add(id);
+		}
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		long statements = statistics.getPrepareStatementCount();
+		
+		delete.accept(ids);
+		entityManager.flush();
+		return statistics.getPrepareStatementCount() - statements;
+	}
+	
 	@Test
 	public void findByVersion() {
 		Iterable<Car> carList = carRepository.findByVersion(0, PageRequest.of(0, 2));
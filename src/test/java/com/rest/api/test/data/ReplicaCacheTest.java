@@ -0,0 +1,123 @@
+package com.rest.api.test.data;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.core.BooleanBuilder;
+import com.rest.api.config.ReplicaDataSourceConfig;
+import com.rest.api.model.Car;
+import com.rest.api.service.CarCache;
+import com.rest.api.service.CarCountCache;
+import com.rest.api.service.CarService;
+import com.rest.api.service.CarServiceImpl;
+
+/**
+ * Shared caches with a replica lagging behind the primary: a client reading its own write must not get
+ * what another client read from the replica.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@TestPropertySource(properties = {
+		"spring.datasource.url=jdbc:h2:mem:replicas-primary;DB_CLOSE_DELAY=-1",
+		"car.replicas.urls=" + ReplicaCacheTest.REPLICA_URL,
+		"car.replicas.sticky-window=60000"})
+@Import({ReplicaDataSourceConfig.class, CarServiceImpl.class, CarCache.class, CarCountCache.class})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+// commits, as the service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReplicaCacheTest {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:replicas-replica;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	// car 1 before its update, car 99 deleted from the primary
+	@BeforeClass
+	public static void replica() {
+		JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "sa"));
+		replica.execute("CREATE TABLE IF NOT EXISTS CAR (ID BIGINT PRIMARY KEY, BRAND VARCHAR(10), MODEL VARCHAR(10), VERSION INTEGER, "
+				+ "PRICE DECIMAL(10,2), INSERT_DATE TIMESTAMP, UPDATE_DATE TIMESTAMP)");
+		replica.update("DELETE FROM CAR");
+		replica.update("INSERT INTO CAR VALUES (1, 'BMW', '320d', 1, 40000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123')");
+		replica.update("INSERT INTO CAR VALUES (99, 'Lada', 'Niva', 0, 5000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123')");
+	}
+
+	@Before
+	public void setup() {
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@After
+	public void clear() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void stickyClientReadsItsWrite() throws Exception {
+		as("user");
+		carService.update(1L, new Car(1, "BMW", "330d", 1, new BigDecimal("40000.00"), null, null));
+
+		// another client reads the replica and fills the caches
+		as("other");
+		Page<Car> page = carService.findAllPaginated(new BooleanBuilder(), PageRequest.of(0, 1, Sort.by("id")));
+		assertThat(page.getContent().get(0).getModel(), equalTo("320d"));
+		assertThat(page.getTotalElements(), equalTo(2L));
+		assertThat(carService.findById(1L).getModel(), equalTo("330d"));
+
+		as("user");
+		page = carService.findAllPaginated(new BooleanBuilder(), PageRequest.of(0, 1, Sort.by("id")));
+		assertThat(page.getContent().get(0).getModel(), equalTo("330d"));
+		assertThat(page.getTotalElements(), equalTo(5L));
+		assertThat(carService.findById(1L).getModel(), equalTo("330d"));
+	}
+
+	@Test
+	public void replicaReadsNotInSecondLevelCache() throws Exception {
+		as("other");
+		Page<Car> page = carService.findAllPaginated(new BooleanBuilder(), PageRequest.of(1, 1, Sort.by("id")));
+		assertThat(page.getContent().get(0).getId(), equalTo(99L));
+		assertThat(entityManagerFactory.getCache().contains(Car.class, 99L), equalTo(false));
+
+		// loaded from the primary
+		carService.findById(2L);
+		assertThat(entityManagerFactory.getCache().contains(Car.class, 2L), equalTo(true));
+	}
+
+	private static void as(String name) {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(name, null));
+	}
+
+}
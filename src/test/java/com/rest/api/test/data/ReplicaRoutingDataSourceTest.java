@@ -0,0 +1,250 @@
+package com.rest.api.test.data;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rest.api.data.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * ReplicaRoutingDataSource between embedded databases, each holding its own name in the NODE table.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final DataSource primary = database("primary");
+	private ReplicaRoutingDataSource routing;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readOnly;
+	private TransactionTemplate readWrite;
+	private long retryInterval = 60000;
+
+	@Before
+	public void setup() {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null));
+	}
+
+	@After
+	public void stop() {
+		routing.close();
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void readOnlyTransactionsOnReplica() {
+		route(false, 5000, replica("replica-1"));
+
+		assertThat(read(), equalTo("replica-1"));
+		assertThat(readWrite.execute(status -> node()), equalTo("primary"));
+		// outside of transactions
+		assertThat(node(), equalTo("primary"));
+		assertThat(reads("replica-1", "replica"), equalTo(1.0));
+	}
+
+	@Test
+	public void replicaReadBoundToTransaction() {
+		route(false, 5000, replica("replica-1"));
+
+		assertThat(readOnly.execute(status -> {
+			node();
+			return ReplicaRoutingDataSource.isReplicaRead();
+		}), equalTo(true));
+		assertThat(ReplicaRoutingDataSource.isReplicaRead(), equalTo(false));
+		assertThat(readWrite.execute(status -> {
+			node();
+			return ReplicaRoutingDataSource.isReplicaRead();
+		}), equalTo(false));
+	}
+
+	@Test
+	public void sharedReadsOnPrimary() {
+		route(false, 5000, replica("replica-1"));
+
+		assertThat(ReplicaRoutingDataSource.onPrimary(this::read), equalTo("primary"));
+		assertThat(reads("primary", "shared"), equalTo(1.0));
+		assertThat(read(), equalTo("replica-1"));
+	}
+
+	@Test
+	public void roundRobin() {
+		route(false, 5000, replica("replica-1"), replica("replica-2"));
+
+		List<String> nodes = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			nodes.add(read());
+		}
+		assertThat(nodes, contains("replica-1", "replica-2", "replica-1", "replica-2"));
+	}
+
+	@Test
+	public void leastLoaded() throws SQLException {
+		HikariDataSource busy = replica("replica-1");
+		route(true, 5000, busy, replica("replica-2"));
+
+		try (Connection connection = busy.getConnection()) {
+			assertThat(read(), equalTo("replica-2"));
+			assertThat(read(), equalTo("replica-2"));
+		}
+	}
+
+	@Test
+	public void stickyAfterOwnWrite() throws InterruptedException {
+		route(false, 300, replica("replica-1"));
+
+		readWrite.execute(status -> jdbcTemplate.update("update NODE set NAME = NAME"));
+		assertThat(read(), equalTo("primary"));
+		assertThat(reads("primary", "sticky"), equalTo(1.0));
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("other", null));
+		assertThat(read(), equalTo("replica-1"));
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null));
+		Thread.sleep(500);
+		assertThat(read(), equalTo("replica-1"));
+	}
+
+	@Test
+	public void notStickyAfterRollback() {
+		route(false, 5000, replica("replica-1"));
+
+		readWrite.execute(status -> {
+			jdbcTemplate.update("update NODE set NAME = NAME");
+			status.setRollbackOnly();
+			return null;
+		});
+		assertThat(read(), equalTo("replica-1"));
+	}
+
+	@Test
+	public void fallbackToPrimary() {
+		AtomicInteger attempts = new AtomicInteger();
+		DataSource down = new DelegatingDataSource(new DriverManagerDataSource("jdbc:h2:mem:down;IFEXISTS=TRUE", "sa", "sa")) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				attempts.incrementAndGet();
+				return super.getConnection();
+			}
+		};
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", down);
+		route(false, 5000, replicas);
+
+		assertThat(read(), equalTo("primary"));
+		// skipped until the retry interval
+		assertThat(read(), equalTo("primary"));
+		assertThat(attempts.get(), equalTo(1));
+		assertThat(reads("primary", "fallback"), equalTo(2.0));
+	}
+
+	@Test
+	public void fallbackToNextReplica() {
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", new DriverManagerDataSource("jdbc:h2:mem:down;IFEXISTS=TRUE", "sa", "sa"));
+		replicas.put("replica-2", replica("replica-2"));
+		route(false, 5000, replicas);
+
+		assertThat(read(), equalTo("replica-2"));
+		assertThat(read(), equalTo("replica-2"));
+	}
+
+	@Test
+	public void retriedAfterInterval() throws InterruptedException {
+		AtomicBoolean failing = new AtomicBoolean(true);
+		DataSource recovering = new DelegatingDataSource(replica("replica-1")) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				if (failing.get()) {
+					throw new SQLException("Connection refused");
+				}
+				return super.getConnection();
+			}
+		};
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		replicas.put("replica-1", recovering);
+		retryInterval = 200;
+		route(false, 5000, replicas);
+
+		assertThat(read(), equalTo("primary"));
+		failing.set(false);
+		assertThat(read(), equalTo("primary"));
+		Thread.sleep(300);
+		assertThat(read(), equalTo("replica-1"));
+		assertThat(read(), equalTo("replica-1"));
+	}
+
+	private void route(boolean leastLoaded, long stickyWindow, HikariDataSource... replicas) {
+		Map<String, DataSource> named = new LinkedHashMap<>();
+		for (HikariDataSource replica : replicas) {
+			named.put(replica.getPoolName(), replica);
+		}
+		route(leastLoaded, stickyWindow, named);
+	}
+
+	private void route(boolean leastLoaded, long stickyWindow, Map<String, DataSource> replicas) {
+		routing = new ReplicaRoutingDataSource(primary, replicas, leastLoaded, stickyWindow, retryInterval);
+		routing.bindMetrics(registry);
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	private String read() {
+		return readOnly.execute(status -> node());
+	}
+
+	private String node() {
+		return jdbcTemplate.queryForObject("select NAME from NODE", String.class);
+	}
+
+	private double reads(String target, String reason) {
+		return registry.get("datasource.reads").tag("target", target).tag("reason", reason).counter().count();
+	}
+
+	private HikariDataSource replica(String name) {
+		HikariDataSource replica = new HikariDataSource();
+		replica.setPoolName(name);
+		replica.setDataSource(database(name));
+		replica.setMaximumPoolSize(2);
+		return replica;
+	}
+
+	private static DataSource database(String name) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "sa");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table if not exists NODE (NAME varchar(20))");
+		jdbcTemplate.update("delete from NODE");
+		jdbcTemplate.update("insert into NODE values (?)", name);
+		return dataSource;
+	}
+
+}
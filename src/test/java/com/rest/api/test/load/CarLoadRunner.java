@@ -0,0 +1,216 @@
+package com.rest.api.test.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.RsaSigner;
+
+import com.rest.api.SpringBootRestApp;
+import com.rest.api.data.CarRepository;
+import com.rest.api.model.Car;
+import com.rest.api.web.ApiRest;
+
+/**
+ * Self-contained load test: boots the application on a random port against an embedded Derby seeded with
+ * <code>load.cars</code> cars, verifying JWTs signed with a key generated at startup (no authorization server),
+ * then drives the <code>load.mix</code> of endpoints and prints latency percentiles per endpoint, then the peak
+ * threads and memory of the process ({@link ResourceMonitor}).
+ * <p/>
+ * <code>mvn -P loadtest test-compile exec:exec -Dload.args="--load.rate=500 --load.duration=120"</code>,
+ * settings in application-loadtest.properties.
+ */
+public class CarLoadRunner {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CarLoadRunner.class);
+	private static final String AUTHORITIES = "[\"CAR_READ\",\"CAR_CREATE\",\"CAR_UPDATE\",\"CAR_DELETE\"]";
+
+	private final String baseUrl;
+	private final String authorization;
+	private final List<Long> stableIds;
+	// seeded and added cars free to delete
+	private final ConcurrentLinkedQueue<Long> deletableIds;
+	private final long pages;
+
+	private CarLoadRunner(String baseUrl, String authorization, List<Long> stableIds, List<Long> deletableIds) {
+		this.baseUrl = baseUrl + ApiRest.API_PATH + "/cars";
+		this.authorization = authorization;
+		this.stableIds = stableIds;
+		this.deletableIds = new ConcurrentLinkedQueue<>(deletableIds);
+		this.pages = Math.max(1, stableIds.size() / 20);
+	}
+
+	public static void main(String[] args) throws Exception {
+		// devtools would relaunch main in a restart class loader
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		
+		KeyPair keyPair = KeyPairGenerator.getInstance("RSA").genKeyPair();
+		// same format as security.oauth2.resource.jwt.key-value, no line breaks
+		String publicKey = "-----BEGIN PUBLIC KEY-----"
+				+ Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded())
+				+ "-----END PUBLIC KEY-----";
+
+		String[] appArgs = new String[args.length + 1];
+		System.arraycopy(args, 0, appArgs, 0, args.length);
+		appArgs[args.length] = "--security.oauth2.resource.jwt.key-value=" + publicKey;
+		ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(SpringBootRestApp.class)
+				.profiles("loadtest")
+				.run(appArgs);
+
+		try {
+			Environment env = context.getEnvironment();
+			int concurrency = env.getProperty("load.concurrency", Integer.class);
+			long warmup = env.getProperty("load.warmup", Long.class);
+			long duration = env.getProperty("load.duration", Long.class);
+			// keep-alive connections per host, default 5
+			System.setProperty("http.maxConnections", Integer.toString(concurrency));
+
+			List<Long> ids = seed(context.getBean(CarRepository.class), env.getProperty("load.cars", Integer.class));
+			int stable = ids.size() - ids.size() / 10;
+			CarLoadRunner runner = new CarLoadRunner("http://localhost:" + context.getWebServer().getPort(),
+					"Bearer " + token((RSAPrivateKey) keyPair.getPrivate()), ids.subList(0, stable), ids.subList(stable, ids.size()));
+
+			LoadGenerator generator = new LoadGenerator();
+			for (Map.Entry<String, Integer> weight : LoadGenerator.parseMix(env.getProperty("load.mix")).entrySet()) {
+				generator.add(weight.getKey(), weight.getValue(), runner.operation(weight.getKey()));
+			}
+
+			String threads = env.getProperty("car.virtual-threads.enabled", Boolean.class, false) ? "virtual" : "platform";
+			ResourceMonitor monitor = ResourceMonitor.start(warmup);
+			String mode = env.getProperty("load.mode");
+			if ("closed".equals(mode)) {
+				LOG.info("{} threads, closed loop, {} clients, {} s warm up, {} s", threads, concurrency, warmup, duration);
+				generator.runClosedLoop(concurrency, warmup, duration);
+			} else {
+				int rate = env.getProperty("load.rate", Integer.class);
+				LOG.info("{} threads, open loop, {} req/s, {} clients, {} s warm up, {} s", threads, rate, concurrency, warmup, duration);
+				generator.runOpenLoop(rate, concurrency, warmup, duration);
+			}
+			monitor.stop();
+			generator.report(System.out, duration, new File("target/loadtest"));
+			monitor.report(System.out);
+		} finally {
+			context.close();
+		}
+	}
+
+	private static List<Long> seed(CarRepository carRepository, int cars) {
+		List<Long> ids = new ArrayList<>(cars);
+		List<Car> chunk = new ArrayList<>();
+		ZonedDateTime now = ZonedDateTime.now();
+		for (int i = 0; i < cars; i++) {
+			chunk.add(new Car(0, "Brand" + i % 50, "Model" + i % 100, i % 10, BigDecimal.valueOf(1000 + i % 50000), now, now));
+			if (chunk.size() == 1000 || i == cars - 1) {
+				carRepository.saveAll(chunk).forEach(car -> ids.add(car.getId()));
+				chunk.clear();
+			}
+		}
+		LOG.info("{} cars seeded", ids.size());
+		return ids;
+	}
+
+	private static String token(RSAPrivateKey privateKey) {
+		long exp = System.currentTimeMillis() / 1000 + TimeUnit.DAYS.toSeconds(1);
+		String claims = "{\"user_name\":\"loadtest\",\"client_id\":\"loadtest\",\"scope\":[\"read\",\"write\"],"
+				+ "\"authorities\":" + AUTHORITIES + ",\"exp\":" + exp + ",\"jti\":\"" + UUID.randomUUID() + "\"}";
+		return JwtHelper.encode(claims, new RsaSigner(privateKey)).getEncoded();
+	}
+
+	private LoadGenerator.Operation operation(String name) {
+		switch (name) {
+		case "listCars":
+			return () -> send("GET", "?page=" + ThreadLocalRandom.current().nextLong(pages) + "&size=20", null) == 200;
+		case "getCar":
+			return () -> send("GET", "/" + randomStableId(), null) == 200;
+		case "addCar":
+			return this::addCar;
+		case "updateCar":
+			return () -> send("PUT", "/" + randomStableId(), carJson()) == 204;
+		case "deleteCar":
+			return () -> {
+				Long id = deletableIds.poll();
+				return id != null && send("DELETE", "/" + id, null) == 204;
+			};
+		default:
+			throw new IllegalArgumentException("Unknown endpoint " + name);
+		}
+	}
+
+	private boolean addCar() throws IOException {
+		HttpURLConnection connection = open("POST", "", carJson());
+		int status = connection.getResponseCode();
+		drain(connection, status);
+		if (status != 201) {
+			return false;
+		}
+		String location = connection.getHeaderField("Location");
+		deletableIds.add(Long.valueOf(location.substring(location.lastIndexOf('/') + 1)));
+		return true;
+	}
+
+	private int send(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = open(method, path, body);
+		int status = connection.getResponseCode();
+		drain(connection, status);
+		return status;
+	}
+
+	private HttpURLConnection open(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+		connection.setRequestMethod(method);
+		connection.setRequestProperty("Authorization", authorization);
+		connection.setRequestProperty("Accept", "application/json");
+		if (body != null) {
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return connection;
+	}
+
+	// the connection goes back to the keep-alive cache only once the body is consumed
+	private static void drain(HttpURLConnection connection, int status) throws IOException {
+		try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			if (in != null) {
+				byte[] buffer = new byte[8192];
+				while (in.read(buffer) != -1) {
+				}
+			}
+		}
+	}
+
+	private long randomStableId() {
+		return stableIds.get(ThreadLocalRandom.current().nextInt(stableIds.size()));
+	}
+
+	private static String carJson() {
+		int i = ThreadLocalRandom.current().nextInt(1000);
+		return "{\"brand\":\"Load" + i % 50 + "\",\"model\":\"Model" + i + "\",\"version\":1,\"price\":" + (1000 + i) + ".00}";
+	}
+
+}
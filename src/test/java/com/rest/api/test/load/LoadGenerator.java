@@ -0,0 +1,162 @@
+package com.rest.api.test.load;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Weighted mix of operations in open or closed loop, latency percentiles per operation.
+ * <p/>
+ * Open loop latencies are measured from the intended send time, so a slow server is not hidden
+ * by the generator waiting for it (coordinated omission).
+ */
+class LoadGenerator {
+
+	interface Operation {
+		// false for an unexpected response
+		boolean call() throws Exception;
+	}
+
+	private final List<Stats> stats = new ArrayList<>();
+	private int totalWeight;
+
+	void add(String name, int weight, Operation operation) {
+		if (weight > 0) {
+			totalWeight += weight;
+			stats.add(new Stats(name, totalWeight, operation));
+		}
+	}
+
+	void runOpenLoop(int rate, int concurrency, long warmupSeconds, long durationSeconds) throws InterruptedException {
+		ExecutorService clients = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory(ResourceMonitor.CLIENT_PREFIX));
+		long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+		long start = System.nanoTime();
+		long measureStart = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long end = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+		
+		for (long intended = start; intended < end; intended += interval) {
+			long wait;
+			while ((wait = intended - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			Stats operation = pick();
+			long sendTime = intended;
+			clients.execute(() -> operation.execute(sendTime, sendTime >= measureStart));
+		}
+		clients.shutdown();
+		clients.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	void runClosedLoop(int concurrency, long warmupSeconds, long durationSeconds) throws InterruptedException {
+		ExecutorService clients = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory(ResourceMonitor.CLIENT_PREFIX));
+		long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long end = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+		
+		for (int i = 0; i < concurrency; i++) {
+			clients.execute(() -> {
+				long sendTime;
+				while ((sendTime = System.nanoTime()) < end) {
+					pick().execute(sendTime, sendTime >= measureStart);
+				}
+			});
+		}
+		clients.shutdown();
+		clients.awaitTermination(durationSeconds + warmupSeconds + 60, TimeUnit.SECONDS);
+	}
+
+	// one line per operation, .hgrm percentile distributions (ms) written to directory
+	void report(PrintStream out, long durationSeconds, File directory) throws FileNotFoundException {
+		directory.mkdirs();
+		out.println(String.format("%-10s %9s %7s %9s %9s %9s %9s %9s %9s",
+				"endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		
+		Histogram total = new Histogram(3);
+		long totalErrors = 0;
+		for (Stats s : stats) {
+			Histogram histogram = s.latencies.getIntervalHistogram();
+			print(out, s.name, histogram, s.errors.sum(), durationSeconds);
+			try (PrintStream hgrm = new PrintStream(new File(directory, s.name + ".hgrm"))) {
+				histogram.outputPercentileDistribution(hgrm, 1000.0);
+			}
+			total.add(histogram);
+			totalErrors += s.errors.sum();
+		}
+		print(out, "total", total, totalErrors, durationSeconds);
+	}
+
+	private static void print(PrintStream out, String name, Histogram histogram, long errors, long durationSeconds) {
+		out.println(String.format("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+				name, histogram.getTotalCount(), errors, (double) (histogram.getTotalCount() + errors) / durationSeconds,
+				ms(histogram, 50), ms(histogram, 90), ms(histogram, 99), ms(histogram, 99.9), histogram.getMaxValue() / 1000.0));
+	}
+
+	private static double ms(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1000.0;
+	}
+
+	private Stats pick() {
+		int value = ThreadLocalRandom.current().nextInt(totalWeight);
+		for (Stats s : stats) {
+			if (value < s.cumulativeWeight) {
+				return s;
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String entry : mix.split(",")) {
+			String[] nameWeight = entry.trim().split(":");
+			weights.put(nameWeight[0], Integer.parseInt(nameWeight[1]));
+		}
+		return weights;
+	}
+
+	private static final class Stats {
+		private final String name;
+		private final int cumulativeWeight;
+		private final Operation operation;
+		// microseconds, auto-resizing
+		private final Recorder latencies = new Recorder(3);
+		private final LongAdder errors = new LongAdder();
+
+		private Stats(String name, int cumulativeWeight, Operation operation) {
+			this.name = name;
+			this.cumulativeWeight = cumulativeWeight;
+			this.operation = operation;
+		}
+
+		private void execute(long sendTime, boolean measured) {
+			boolean ok;
+			try {
+				ok = operation.call();
+			} catch (Exception e) {
+				ok = false;
+			}
+			if (!measured) {
+				return;
+			}
+			if (ok) {
+				latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sendTime));
+			} else {
+				errors.increment();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.rest.api.test.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resources of the process during the measured part of a load test, sampled every 100 ms: platform threads
+ * but the load clients (virtual threads are not counted), heap used, heap live after the last collections,
+ * resident memory (Linux only) and garbage collections.
+ * <p/>
+ * The load clients share the heap: compare runs with the same mode, rate and concurrency.
+ */
+class ResourceMonitor {
+
+	static final String CLIENT_PREFIX = "load-client-";
+	private static final String NAME = "load-monitor";
+	private static final Path STATUS = Paths.get("/proc/self/status");
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private final Thread sampler;
+	private volatile boolean stopped;
+
+	private int samples;
+	private int maxThreads;
+	private long threadSum;
+	private long maxHeapUsed;
+	private long maxHeapLive;
+	private long maxRss = -1;
+	private long gcCount;
+	private long gcMillis;
+
+	private ResourceMonitor(long warmupSeconds) {
+		sampler = new Thread(() -> run(warmupSeconds), NAME);
+		sampler.setDaemon(true);
+	}
+
+	static ResourceMonitor start(long warmupSeconds) {
+		ResourceMonitor monitor = new ResourceMonitor(warmupSeconds);
+		monitor.sampler.start();
+		return monitor;
+	}
+
+	void stop() throws InterruptedException {
+		stopped = true;
+		sampler.interrupt();
+		sampler.join();
+	}
+
+	void report(PrintStream out) {
+		out.println(String.format("%-14s %9s %9s %14s %14s %9s %9s %9s",
+				"resources", "threads", "avg", "heap used MB", "heap live MB", "rss MB", "gc", "gc ms"));
+		out.println(String.format("%-14s %9d %9.1f %14.1f %14.1f %9s %9d %9d",
+				"peak", maxThreads, samples == 0 ? 0.0 : (double) threadSum / samples, mb(maxHeapUsed), mb(maxHeapLive),
+				maxRss < 0 ? "n/a" : String.format("%.1f", mb(maxRss)), gcCount, gcMillis));
+	}
+
+	private void run(long warmupSeconds) {
+		try {
+			TimeUnit.SECONDS.sleep(warmupSeconds);
+		} catch (InterruptedException e) {
+			return;
+		}
+		long startCount = gcCount(), startMillis = gcMillis();
+		while (!stopped) {
+			sample();
+			try {
+				TimeUnit.MILLISECONDS.sleep(100);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+		gcCount = gcCount() - startCount;
+		gcMillis = gcMillis() - startMillis;
+	}
+
+	private void sample() {
+		int serverThreads = 0;
+		for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 0)) {
+			if (info != null && !info.getThreadName().startsWith(CLIENT_PREFIX) && !NAME.equals(info.getThreadName())) {
+				serverThreads++;
+			}
+		}
+		samples++;
+		threadSum += serverThreads;
+		maxThreads = Math.max(maxThreads, serverThreads);
+
+		long used = 0, live = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				used += pool.getUsage().getUsed();
+				MemoryUsage collected = pool.getCollectionUsage();
+				live += collected == null ? 0 : collected.getUsed();
+			}
+		}
+		maxHeapUsed = Math.max(maxHeapUsed, used);
+		maxHeapLive = Math.max(maxHeapLive, live);
+		maxRss = Math.max(maxRss, rss());
+	}
+
+	// VmRSS of /proc/self/status, -1 elsewhere
+	private static long rss() {
+		try {
+			for (String line : Files.readAllLines(STATUS, StandardCharsets.US_ASCII)) {
+				if (line.startsWith("VmRSS:")) {
+					return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+		}
+		return -1;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return millis;
+	}
+
+	private static double mb(long bytes) {
+		return bytes / (1024.0 * 1024.0);
+	}
+
+}
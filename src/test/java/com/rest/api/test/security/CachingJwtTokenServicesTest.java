@@ -0,0 +1,138 @@
+package com.rest.api.test.security;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.RsaSigner;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import com.rest.api.security.CachingJwtTokenServices;
+import com.rest.api.security.JwtKeySet;
+
+public class CachingJwtTokenServicesTest {
+
+	private static KeyPair first;
+	private static KeyPair second;
+
+	@BeforeClass
+	public static void keys() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		first = generator.genKeyPair();
+		second = generator.genKeyPair();
+	}
+
+	@Test
+	public void verifiedTokenCached() {
+		JwtKeySet keySet = spy(new JwtKeySet("", pem(first), 300000, 30000));
+		CachingJwtTokenServices tokenServices = new CachingJwtTokenServices(keySet, 100, 600000);
+		String token = token(first, null, inSeconds(3600));
+
+		OAuth2Authentication authentication = tokenServices.loadAuthentication(token);
+		assertThat(authentication.getName(), equalTo("user"));
+		assertThat(authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()),
+				containsInAnyOrder("CAR_READ", "CAR_CREATE"));
+		assertThat(tokenServices.loadAuthentication(token).getName(), equalTo("user"));
+		verify(keySet, times(1)).verify(token);
+	}
+
+	@Test
+	public void expiredToken() {
+		CachingJwtTokenServices tokenServices = new CachingJwtTokenServices(new JwtKeySet("", pem(first), 300000, 30000), 100, 600000);
+		assertInvalid(tokenServices, token(first, null, inSeconds(-60)));
+	}
+
+	@Test
+	public void cachedUntilExpiration() throws Exception {
+		CachingJwtTokenServices tokenServices = new CachingJwtTokenServices(new JwtKeySet("", pem(first), 300000, 30000), 100, 600000);
+		long exp = inSeconds(2);
+		String token = token(first, null, exp);
+
+		tokenServices.loadAuthentication(token);
+		Thread.sleep(exp * 1000 - System.currentTimeMillis() + 100);
+		assertInvalid(tokenServices, token);
+	}
+
+	@Test
+	public void unknownKey() {
+		CachingJwtTokenServices tokenServices = new CachingJwtTokenServices(new JwtKeySet("", pem(first), 300000, 30000), 100, 600000);
+		assertInvalid(tokenServices, token(second, null, inSeconds(3600)));
+		assertInvalid(tokenServices, "not.a.token");
+	}
+
+	@Test
+	public void keyRotation() throws Exception {
+		StringBuilder published = new StringBuilder(jwks("k1", first));
+		JwtKeySet keySet = new JwtKeySet("http://localhost/keys", "", 300000, 0) {
+			@Override
+			protected String fetchKeys() {
+				return published.toString();
+			}
+		};
+		keySet.refresh();
+		CachingJwtTokenServices tokenServices = new CachingJwtTokenServices(keySet, 100, 600000);
+		String oldToken = token(first, "k1", inSeconds(3600));
+		tokenServices.loadAuthentication(oldToken);
+
+		// rotated by the issuer, the new key is fetched on its first token
+		published.replace(0, published.length(), jwks("k2", second));
+		String newToken = token(second, "k2", inSeconds(3600));
+		assertThat(tokenServices.loadAuthentication(newToken).getName(), equalTo("user"));
+		assertThat(tokenServices.loadAuthentication(oldToken).getName(), equalTo("user"));
+
+		// the old key stops verifying one refresh later, cached tokens included
+		keySet.refresh();
+		assertInvalid(tokenServices, oldToken);
+		assertThat(tokenServices.loadAuthentication(newToken).getName(), equalTo("user"));
+	}
+
+	private static void assertInvalid(CachingJwtTokenServices tokenServices, String token) {
+		try {
+			tokenServices.loadAuthentication(token);
+			fail("InvalidTokenException expected");
+		} catch (InvalidTokenException e) {
+		}
+	}
+
+	private static String token(KeyPair keyPair, String kid, long exp) {
+		String claims = "{\"user_name\":\"user\",\"client_id\":\"client_id\",\"scope\":[\"read\"],"
+				+ "\"authorities\":[\"CAR_READ\",\"CAR_CREATE\"],\"exp\":" + exp + "}";
+		RsaSigner signer = new RsaSigner((RSAPrivateKey) keyPair.getPrivate());
+		return (kid == null ? JwtHelper.encode(claims, signer)
+				: JwtHelper.encode(claims, signer, Collections.singletonMap("kid", kid))).getEncoded();
+	}
+
+	private static long inSeconds(long seconds) {
+		return System.currentTimeMillis() / 1000 + seconds;
+	}
+
+	private static String pem(KeyPair keyPair) {
+		return "-----BEGIN PUBLIC KEY-----" + Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()) + "-----END PUBLIC KEY-----";
+	}
+
+	private static String jwks(String kid, KeyPair keyPair) {
+		RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		return "{\"keys\":[{\"kty\":\"RSA\",\"use\":\"sig\",\"kid\":\"" + kid + "\",\"n\":\""
+				+ encoder.encodeToString(key.getModulus().toByteArray()) + "\",\"e\":\""
+				+ encoder.encodeToString(key.getPublicExponent().toByteArray()) + "\"}]}";
+	}
+
+}
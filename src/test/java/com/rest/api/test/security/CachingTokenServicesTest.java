@@ -0,0 +1,193 @@
+package com.rest.api.test.security;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
+
+import com.rest.api.security.CachingTokenServices;
+import com.rest.api.security.ExpiryAccessTokenConverter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * CachingTokenServices around RemoteTokenServices, against a local stub of the check_token endpoint.
+ */
+public class CachingTokenServicesTest {
+
+	private HttpServer checkToken;
+	private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+	private final Map<String, Long> expirations = new ConcurrentHashMap<>();
+	private final CountDownLatch slow = new CountDownLatch(1);
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private CachingTokenServices tokenServices;
+
+	@Before
+	public void setup() throws IOException {
+		checkToken = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		checkToken.createContext("/oauth/check_token", this::checkToken);
+		checkToken.setExecutor(Executors.newCachedThreadPool());
+		checkToken.start();
+
+		RemoteTokenServices remoteTokenServices = new RemoteTokenServices();
+		remoteTokenServices.setCheckTokenEndpointUrl("http://localhost:" + checkToken.getAddress().getPort() + "/oauth/check_token");
+		remoteTokenServices.setClientId("client_id");
+		remoteTokenServices.setClientSecret("client_secret");
+		remoteTokenServices.setAccessTokenConverter(new ExpiryAccessTokenConverter());
+		tokenServices = new CachingTokenServices(remoteTokenServices, 100, 60000, 60000);
+		tokenServices.bindMetrics(registry);
+	}
+
+	@After
+	public void stop() {
+		slow.countDown();
+		checkToken.stop(0);
+	}
+
+	@Test
+	public void cachedAuthentication() {
+		expirations.put("active", inSeconds(3600));
+
+		assertThat(tokenServices.loadAuthentication("active").getName(), equalTo("user"));
+		assertThat(tokenServices.loadAuthentication("active").getName(), equalTo("user"));
+		assertThat(calls("active"), equalTo(1));
+		assertThat(registry.timer("oauth.introspection", "outcome", "active").count(), equalTo(1L));
+	}
+
+	@Test
+	public void cachedUntilExpiration() throws Exception {
+		long exp = inSeconds(2);
+		expirations.put("expiring", exp);
+
+		tokenServices.loadAuthentication("expiring");
+		tokenServices.loadAuthentication("expiring");
+		assertThat(calls("expiring"), equalTo(1));
+		Thread.sleep(exp * 1000 - System.currentTimeMillis() + 100);
+		tokenServices.loadAuthentication("expiring");
+		assertThat(calls("expiring"), equalTo(2));
+	}
+
+	@Test
+	public void invalidTokenCached() {
+		assertInvalid("unknown");
+		assertInvalid("unknown");
+		assertThat(calls("unknown"), equalTo(1));
+		assertThat(registry.timer("oauth.introspection", "outcome", "invalid").count(), equalTo(1L));
+	}
+
+	@Test
+	public void failureNotCached() {
+		for (int i = 0; i < 2; i++) {
+			try {
+				tokenServices.loadAuthentication("broken");
+				fail("AuthenticationServiceException expected");
+			} catch (AuthenticationServiceException e) {
+			}
+		}
+		assertThat(calls("broken"), equalTo(2));
+	}
+
+	@Test
+	public void concurrentIntrospectionsCoalesced() throws Exception {
+		expirations.put("slow", inSeconds(3600));
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> names = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				names.add(clients.submit(() -> tokenServices.loadAuthentication("slow").getName()));
+			}
+			// every client waiting for the first check
+			Thread.sleep(500);
+			slow.countDown();
+			for (Future<String> name : names) {
+				assertThat(name.get(10, TimeUnit.SECONDS), equalTo("user"));
+			}
+		} finally {
+			clients.shutdownNow();
+		}
+		assertThat(calls("slow"), equalTo(1));
+		assertThat(registry.counter("oauth.introspection.coalesced").count(), equalTo(7.0));
+	}
+
+	private void assertInvalid(String token) {
+		try {
+			tokenServices.loadAuthentication(token);
+			fail("InvalidTokenException expected");
+		} catch (InvalidTokenException e) {
+		}
+	}
+
+	private int calls(String token) {
+		AtomicInteger count = calls.get(token);
+		return count == null ? 0 : count.get();
+	}
+
+	// form token=..., answers like the check_token endpoint of the authorization server
+	private void checkToken(HttpExchange exchange) throws IOException {
+		String token;
+		try (InputStream in = exchange.getRequestBody(); Scanner scanner = new Scanner(in, "UTF-8")) {
+			String form = scanner.useDelimiter("\\A").next();
+			token = URLDecoder.decode(form.substring(form.indexOf("token=") + 6).split("&")[0], "UTF-8");
+		}
+		calls.computeIfAbsent(token, key -> new AtomicInteger()).incrementAndGet();
+		if ("slow".equals(token)) {
+			try {
+				slow.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		int status;
+		String body;
+		if ("broken".equals(token)) {
+			status = 500;
+			body = "{}";
+		} else if (expirations.containsKey(token)) {
+			status = 200;
+			body = "{\"active\":true,\"user_name\":\"user\",\"client_id\":\"client_id\",\"scope\":[\"read\"],"
+					+ "\"authorities\":[\"CAR_READ\"],\"exp\":" + expirations.get(token) + "}";
+		} else {
+			status = 400;
+			body = "{\"error\":\"invalid_token\",\"error_description\":\"Token was not recognised\"}";
+		}
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static long inSeconds(long seconds) {
+		return System.currentTimeMillis() / 1000 + seconds;
+	}
+
+}
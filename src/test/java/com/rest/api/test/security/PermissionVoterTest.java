@@ -0,0 +1,87 @@
+package com.rest.api.test.security;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasToString;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+import com.rest.api.security.Permission;
+import com.rest.api.security.PermissionMetadataSource;
+import com.rest.api.security.PermissionVoter;
+import com.rest.api.security.PermittedAuthentication;
+import com.rest.api.service.CarServiceImpl;
+
+public class PermissionVoterTest {
+
+	private final PermissionMetadataSource metadataSource = new PermissionMetadataSource();
+	private final PermissionVoter voter = new PermissionVoter();
+
+	@Test
+	public void precompiledGuards() throws Exception {
+		assertThat(attributes(CarServiceImpl.class, "findAll"), contains(hasToString("hasAuthority('CAR_READ')")));
+		assertThat(attributes(CarServiceImpl.class, "deleteById", Long.class), contains(hasToString("hasAuthority('CAR_DELETE')")));
+		// left to the expression based source
+		assertThat(attributes(Guarded.class, "unknownAuthority"), empty());
+		assertThat(attributes(Guarded.class, "expression"), empty());
+		assertThat(attributes(Guarded.class, "postAuthorize"), empty());
+	}
+
+	@Test
+	public void vote() throws Exception {
+		Collection<ConfigAttribute> delete = attributes(CarServiceImpl.class, "deleteById", Long.class);
+		Authentication reader = new UsernamePasswordAuthenticationToken("user", null, AuthorityUtils.createAuthorityList("CAR_READ"));
+		Authentication admin = new UsernamePasswordAuthenticationToken("admin", null, AuthorityUtils.createAuthorityList("CAR_READ", "CAR_DELETE"));
+
+		assertThat(voter.vote(reader, null, delete), equalTo(AccessDecisionVoter.ACCESS_DENIED));
+		assertThat(voter.vote(admin, null, delete), equalTo(AccessDecisionVoter.ACCESS_GRANTED));
+		assertThat(voter.vote(admin, null, Collections.emptyList()), equalTo(AccessDecisionVoter.ACCESS_ABSTAIN));
+	}
+
+	@Test
+	public void permittedAuthentication() {
+		OAuth2Request request = new OAuth2Request(null, "client_id", null, true, null, null, null, null, null);
+		PermittedAuthentication authentication = new PermittedAuthentication(new OAuth2Authentication(request,
+				new UsernamePasswordAuthenticationToken("user", null, AuthorityUtils.createAuthorityList("CAR_READ", "CAR_UPDATE", "OTHER"))));
+
+		assertThat(authentication.getPermissions(), equalTo(Permission.CAR_READ.mask() | Permission.CAR_UPDATE.mask()));
+		assertThat(Permission.mask(new PermittedAuthentication(authentication)), equalTo(authentication.getPermissions()));
+	}
+
+	private Collection<ConfigAttribute> attributes(Class<?> type, String name, Class<?>... parameterTypes) throws Exception {
+		return metadataSource.getAttributes(type.getMethod(name, parameterTypes), type);
+	}
+
+	public static class Guarded {
+
+		@PreAuthorize("hasAuthority('CAR_EXPORT')")
+		public void unknownAuthority() {
+		}
+
+		@PreAuthorize("hasAuthority('CAR_READ') and isFullyAuthenticated()")
+		public void expression() {
+		}
+
+		@PreAuthorize("hasAuthority('CAR_READ')")
+		@PostAuthorize("returnObject != null")
+		public Object postAuthorize() {
+			return null;
+		}
+
+	}
+
+}
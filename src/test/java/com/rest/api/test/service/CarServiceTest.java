@@ -1,37 +1,85 @@
 package com.rest.api.test.service;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
 
 import org.exparity.hamcrest.date.ZonedDateTimeMatchers;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.MessageSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
 import com.rest.api.data.CarRepository;
+import com.rest.api.exception.CarModifiedException;
 import com.rest.api.exception.CarNotFoundException;
+import com.rest.api.exception.InvalidCursorException;
+import com.rest.api.exception.InvalidFieldsException;
 import com.rest.api.model.Car;
+import com.rest.api.model.CarPatch;
+import com.rest.api.model.ImportReport;
+import com.rest.api.model.QCar;
+import com.rest.api.model.error.RowError;
+import com.rest.api.model.error.ValidationError;
+import com.rest.api.service.CarCache;
+import com.rest.api.service.CarCountCache;
+import com.rest.api.service.CarCursor;
+import com.rest.api.service.CarFields;
 import com.rest.api.service.CarService;
+import com.rest.api.service.CarServiceImpl;
+import com.rest.api.service.CarVersions;
+import com.rest.api.service.EstimatedPage;
+import com.rest.api.service.ImportRow;
 
 
 @RunWith(SpringRunner.class)
@@ -53,18 +101,25 @@ public class CarServiceTest {
 	private List<Car> carList = new ArrayList<>();
 	private Car car;
 	
+	@Autowired
+	private CarCache carCache;
+	
 	@MockBean
 	private CarRepository carRepository;
 
 	// Load carService implementation
 	@Configuration
 	@ComponentScan("com.rest.api.*")
+	// Load messages.properties, ObjectMapper of the scanned controllers
+	@ImportAutoConfiguration({MessageSourceAutoConfiguration.class, JacksonAutoConfiguration.class})
 	public static class SpringConfig {
 
 	}
 	
 	@Before
     public void setup() throws InterruptedException {
+		carCache.invalidateAll();
+		
 		car = new Car(6, "Brand", "Model", 1, new BigDecimal("1000.00"), null, null);
 		
         carList.add(new Car(1, "BMW", "320d", 1, new BigDecimal("40000.00"), ZonedDateTime.now().minusMinutes(1), ZonedDateTime.now().minusMinutes(1)));
@@ -84,6 +139,79 @@ public class CarServiceTest {
 		assertThat(car, equalTo(carList.get(2)));
 	}
 	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ", "CAR_UPDATE"})
+	public void getCarCached() throws Exception {
+		//given
+		given(carRepository.findById(3L)).willReturn(Optional.of(carList.get(2)));
+		
+		long hits = carCache.stats().hitCount();
+		carService.findById(3L);
+		carService.findById(3L);
+		verify(carRepository, times(1)).findById(3L);
+		assertThat(carCache.stats().hitCount() - hits, equalTo(1L));
+		
+		// writes invalidate the cached car, without reading it
+		given(carRepository.update(eq(3L), any(Car.class), isNull())).willReturn(1L);
+		carService.update(3L, carList.get(2));
+		carService.findById(3L);
+		verify(carRepository, times(2)).findById(3L);
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ"})
+	public void getCarFields() throws Exception {
+		//given
+		CarFields fields = CarFields.parse("brand");
+		given(carRepository.findColumnsById(3L, fields.getColumns())).willReturn(Projections.tuple(fields.getColumns())
+				.newInstance(3L, carList.get(2).getBrand()));
+		
+		Map<String, Object> car = carService.findById(3L, fields);
+		assertThat(car.keySet(), contains("id", "brand"));
+		assertThat(car.get("brand"), equalTo(carList.get(2).getBrand()));
+		verify(carRepository, never()).findById(3L);
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ"})
+	public void carVersion() throws Exception {
+		//given
+		given(carRepository.findColumnsById(3L, QCar.car.updateDate)).willReturn(Projections.tuple(QCar.car.updateDate)
+				.newInstance(carList.get(2).getUpdateDate()));
+		given(carRepository.findById(3L)).willReturn(Optional.of(carList.get(2)));
+		
+		assertThat(carService.findVersion(3L), equalTo(CarVersions.of(carList.get(2))));
+		verify(carRepository, never()).findById(3L);
+		
+		// cached car
+		carService.findById(3L);
+		assertThat(carService.findVersion(3L), equalTo(CarVersions.of(carList.get(2))));
+		verify(carRepository, times(1)).findColumnsById(3L, QCar.car.updateDate);
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ"})
+	public void pageVersion() throws Exception {
+		//given
+		PageRequest pageable = PageRequest.of(0, 2);
+		List<Tuple> rows = new ArrayList<>();
+		carList.subList(0, 2).forEach(car -> rows.add(Projections.tuple(QCar.car.id, QCar.car.updateDate).newInstance(car.getId(), car.getUpdateDate())));
+		given(carRepository.findSlice(any(Predicate.class), eq(pageable), eq(QCar.car.id), eq(QCar.car.updateDate)))
+				.willReturn(new SliceImpl<>(rows, pageable, true));
+		
+		String version = carService.findPageVersion(new BooleanBuilder(), pageable, false);
+		assertThat(version, equalTo(CarVersions.ofPage(carList.subList(0, 2), true, -1)));
+		verify(carRepository, never()).findSlice(any(Predicate.class), any(PageRequest.class));
+		
+		carList.get(1).setUpdateDate(ZonedDateTime.now());
+		assertThat(CarVersions.ofPage(carList.subList(0, 2), true, -1), not(equalTo(version)));
+	}
+	
+	@Test(expected = InvalidFieldsException.class)
+	public void invalidFields() throws Exception {
+		CarFields.parse("brand,insertDate");
+	}
+	
 	@Test(expected = CarNotFoundException.class)
 	@WithMockUser(authorities = {"CAR_READ"})
 	public void getCarNotFound() throws Exception {
@@ -129,6 +257,134 @@ public class CarServiceTest {
 		listCars();
 	}
 	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ"})
+	public void listCarsByKeyset() throws Exception {
+		//given
+		given(carRepository.findSlice(any(Predicate.class), eq(PageRequest.of(0, 2, Sort.by("price", "id")))))
+			.willReturn(new SliceImpl<>(carList.subList(0, 2), PageRequest.of(0, 2, Sort.by("price", "id")), true));
+		
+		Slice<Car> slice = carService.findAllByKeyset(QCar.car.version.goe(0), null, PageRequest.of(0, 2, Sort.by("price")));
+		assertThat(slice.getContent().size(), equalTo(2));
+		assertThat(slice.hasNext(), is(true));
+		assertThat(slice.getSort(), equalTo(Sort.by("price", "id")));
+		
+		// next page
+		CarCursor cursor = CarCursor.decode(CarCursor.after(slice.getContent().get(1), slice.getSort()).encode());
+		given(carRepository.findSlice(any(Predicate.class), eq(PageRequest.of(0, 2, Sort.by("price", "id")))))
+			.willReturn(new SliceImpl<>(carList.subList(2, 4), PageRequest.of(0, 2, Sort.by("price", "id")), false));
+		
+		slice = carService.findAllByKeyset(QCar.car.version.goe(0), cursor, PageRequest.of(0, 2));
+		assertThat(slice.getContent().size(), equalTo(2));
+		assertThat(slice.hasNext(), is(false));
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ"})
+	public void listCarsSliced() {
+		//given
+		given(carRepository.findSlice(any(Predicate.class), any(PageRequest.class)))
+			.willReturn(new SliceImpl<>(carList.subList(0, 2), PageRequest.of(0, 2), true));
+		
+		Slice<Car> slice = carService.findAllSliced(QCar.car.version.goe(0), PageRequest.of(0, 2));
+		assertThat(slice.getContent().size(), equalTo(2));
+		assertThat(slice.hasNext(), is(true));
+	}
+	
+	@Test(expected = AccessDeniedException.class)
+	@WithMockUser(authorities = {"MOCK"})
+	public void listCarsSlicedWrongUser() {
+		listCarsSliced();
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ", "CAR_CREATE"})
+	public void listCarsPaginatedCachedCount() throws Exception {
+		//given
+		Predicate predicate = QCar.car.version.goe(0);
+		given(carRepository.findSlice(any(Predicate.class), any(PageRequest.class)))
+			.willReturn(new SliceImpl<>(carList.subList(0, 2), PageRequest.of(0, 2), true));
+		given(carRepository.count(any(Predicate.class))).willReturn(5L);
+		given(carRepository.save(car)).willReturn(car);
+		
+		Page<Car> page = carService.findAllPaginated(predicate, PageRequest.of(0, 2));
+		assertThat(page.getTotalElements(), equalTo(5L));
+		assertThat(page.getTotalPages(), equalTo(3));
+		
+		// page turn, same predicate
+		carService.findAllPaginated(QCar.car.version.goe(0), PageRequest.of(1, 2));
+		verify(carRepository, times(1)).count(any(Predicate.class));
+		
+		// writes invalidate the count
+		carService.add(car);
+		given(carRepository.count(any(Predicate.class))).willReturn(6L);
+		page = carService.findAllPaginated(predicate, PageRequest.of(0, 2));
+		assertThat(page.getTotalElements(), equalTo(6L));
+		assertThat(page, not(instanceOf(EstimatedPage.class)));
+		verify(carRepository, times(2)).count(any(Predicate.class));
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ"})
+	public void listCarsPaginatedLastPage() throws Exception {
+		//given
+		given(carRepository.findSlice(any(Predicate.class), any(PageRequest.class)))
+			.willReturn(new SliceImpl<>(carList.subList(4, 5), PageRequest.of(2, 2), false));
+		
+		Page<Car> page = carService.findAllPaginated(QCar.car.version.goe(0), PageRequest.of(2, 2));
+		assertThat(page.getTotalElements(), equalTo(5L));
+		verify(carRepository, never()).count(any(Predicate.class));
+	}
+	
+	@Test
+	public void approximateCount() {
+		CarCountCache countCache = new CarCountCache(true, 60000, 100);
+		AtomicLong total = new AtomicLong(5);
+		
+		CarCountCache.Count count = countCache.count(null, total::get);
+		assertThat(count.getValue(), equalTo(5L));
+		assertThat(count.isEstimated(), is(false));
+		
+		// stale but within max staleness, empty predicate is the same search
+		countCache.invalidate();
+		total.set(6);
+		count = countCache.count(new BooleanBuilder(), total::get);
+		assertThat(count.getValue(), equalTo(5L));
+		assertThat(count.isEstimated(), is(true));
+		
+		// exact mode recounts
+		countCache = new CarCountCache(false, 60000, 100);
+		countCache.count(null, total::get);
+		countCache.invalidate();
+		total.set(7);
+		assertThat(countCache.count(null, total::get).getValue(), equalTo(7L));
+	}
+	
+	@Test
+	public void countKeyedByPredicate() {
+		CarCountCache countCache = new CarCountCache(false, 60000, 100);
+		
+		// same string form, different searches
+		Predicate combined = QCar.car.brand.eq("BMW").and(QCar.car.model.eq("320d"));
+		Predicate brand = QCar.car.brand.eq("BMW && car.model = 320d");
+		assertThat(brand.toString(), equalTo(combined.toString()));
+		assertThat(countCache.count(combined, () -> 1).getValue(), equalTo(1L));
+		assertThat(countCache.count(brand, () -> 0).getValue(), equalTo(0L));
+		
+		// an equal predicate built again
+		assertThat(countCache.count(QCar.car.brand.eq("BMW").and(QCar.car.model.eq("320d")), () -> 2).getValue(), equalTo(1L));
+	}
+	
+	@Test(expected = InvalidCursorException.class)
+	public void invalidCursor() throws Exception {
+		CarCursor.decode("not-a-cursor");
+	}
+	
+	@Test(expected = InvalidCursorException.class)
+	public void invalidKeysetSort() throws Exception {
+		CarCursor.keysetSort(Sort.by("insertDate"));
+	}
+	
 	@Test
 	@WithMockUser(authorities = {"CAR_READ", "CAR_CREATE"})
 	public void addCar() throws Exception {
@@ -160,6 +416,7 @@ public class CarServiceTest {
 	public void updateCar() throws Exception {
 		//given
 		given(carRepository.findById(2L)).willReturn(Optional.of(carList.get(1)));
+		given(carRepository.update(eq(2L), any(Car.class), isNull())).willReturn(1L);
 				
 		Car car = carService.findById(2L);
 		car.setBrand("Brand");
@@ -184,7 +441,7 @@ public class CarServiceTest {
 	@WithMockUser(authorities = {"CAR_UPDATE"})
 	public void updateCarNotFound() throws Exception {
 		//given
-		given(carRepository.findById(99L)).willReturn(Optional.empty());
+		given(carRepository.update(eq(99L), any(Car.class), isNull())).willReturn(0L);
 		
 		Car car = new Car();
 		car.setId(99);
@@ -196,6 +453,58 @@ public class CarServiceTest {
 		carService.update(car.getId(), car);
 	}
 	
+	@Test
+	@WithMockUser(authorities = {"CAR_UPDATE"})
+	public void updateCarIfMatch() throws Exception {
+		//given
+		given(carRepository.update(eq(2L), any(Car.class), any(Predicate.class))).willReturn(1L);
+		
+		Car car = new Car(0, "Brand", "Model", 0, new BigDecimal("1000.00"), null, null);
+		String version = carService.update(2L, car, Collections.singletonList(CarVersions.of(carList.get(1))));
+		assertThat(version, equalTo(CarVersions.of(car)));
+		verify(carRepository, never()).existsById(2L);
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_READ", "CAR_UPDATE"})
+	public void updateCarInvalidatedAfterCommit() throws Exception {
+		//given
+		given(carRepository.update(eq(2L), any(Car.class), any(Predicate.class))).willReturn(1L);
+		given(carRepository.findById(2L)).willReturn(Optional.of(carList.get(1)));
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			carService.update(2L, new Car(0, "Brand", "Model", 0, new BigDecimal("1000.00"), null, null), Collections.singletonList(CarVersions.of(carList.get(1))));
+			// a concurrent read before the commit caches the previous row
+			carService.findById(2L);
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertThat(carCache.getIfPresent(2L), is(nullValue()));
+	}
+	
+	@Test(expected = CarModifiedException.class)
+	@WithMockUser(authorities = {"CAR_UPDATE"})
+	public void updateCarModified() throws Exception {
+		//given
+		given(carRepository.update(eq(2L), any(Car.class), any(Predicate.class))).willReturn(0L);
+		given(carRepository.existsById(2L)).willReturn(true);
+		
+		carService.update(2L, new Car(0, "Brand", "Model", 0, new BigDecimal("1000.00"), null, null), Collections.singletonList(CarVersions.of(carList.get(1))));
+	}
+	
+	@Test(expected = CarNotFoundException.class)
+	@WithMockUser(authorities = {"CAR_DELETE"})
+	public void deleteCarIfMatchNotFound() throws Exception {
+		//given
+		given(carRepository.existsById(99L)).willReturn(false);
+		
+		// not a version of a car, nothing to delete
+		carService.deleteById(99L, Collections.singletonList("not-a-version"));
+	}
+	
 	@Test(expected = AccessDeniedException.class)
 	@WithMockUser(authorities = {"MOCK"})
 	public void updateCarWrongUser() throws Exception {
@@ -210,14 +519,124 @@ public class CarServiceTest {
 	@Test
 	@WithMockUser(authorities = {"CAR_DELETE"})
 	public void deleteCar() throws Exception {
+		//given
+		given(carRepository.deleteCarById(2L)).willReturn(1);
+		
 		carService.deleteById(2L);
+		verify(carRepository, never()).findById(2L);
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_CREATE"})
+	public void importCars() throws Exception {
+		List<ImportRow> rows = new ArrayList<>();
+		rows.add(ImportRow.of(1, new Car(0, "Brand", "Model", 1, new BigDecimal("1000.00"), null, null)));
+		rows.add(ImportRow.unreadable(2, "expected 5 fields, found 3"));
+		rows.add(ImportRow.of(3, new Car(0, "Brand too long", "Model", 1, new BigDecimal("1000.00"), null, null)));
+		rows.add(ImportRow.of(4, new Car(0, "Brand", "Model", 2, new BigDecimal("1000.00"), null, null)));
+		rows.add(ImportRow.of(5, new Car(0, "Brand", "Model", 3, new BigDecimal("1000.00"), null, null)));
+		
+		CarServiceImpl target = AopTestUtils.getTargetObject(carService);
+		ReflectionTestUtils.setField(target, "importChunkSize", 2);
+		try {
+			ImportReport report = carService.importCars(rows.iterator());
+			
+			assertThat(report.getImported(), equalTo(3L));
+			assertThat(report.getRejected(), equalTo(2L));
+			assertThat(report.getErrors().get(0).getLine(), equalTo(2L));
+			assertThat(report.getErrors().get(0).getCode(), equalTo(RowError.UNREADABLE));
+			assertThat(report.getErrors().get(0).getMessage(), equalTo("Unreadable row: expected 5 fields, found 3"));
+			assertThat(report.getErrors().get(1).getLine(), equalTo(3L));
+			assertThat(report.getErrors().get(1).getCode(), equalTo(ValidationError.CODE));
+			assertThat(report.getErrors().get(1).getErrorList().get(0).getField(), equalTo("brand"));
+			// chunks of 2 and 1
+			verify(carRepository, times(2)).saveAll(any());
+		} finally {
+			ReflectionTestUtils.setField(target, "importChunkSize", 500);
+		}
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_CREATE"})
+	public void importCarsChunkRolledBack() throws Exception {
+		//given
+		given(carRepository.saveAll(any())).willThrow(new DataIntegrityViolationException("duplicate key")).willReturn(null);
+		List<ImportRow> rows = new ArrayList<>();
+		for (int line = 1; line <= 3; line++) {
+			rows.add(ImportRow.of(line, new Car(0, "Brand", "Model", line, new BigDecimal("1000.00"), null, null)));
+		}
+		
+		CarServiceImpl target = AopTestUtils.getTargetObject(carService);
+		ReflectionTestUtils.setField(target, "importChunkSize", 2);
+		try {
+			ImportReport report = carService.importCars(rows.iterator());
+			
+			// the first chunk is rejected, the second one inserted
+			assertThat(report.getImported(), equalTo(1L));
+			assertThat(report.getRejected(), equalTo(2L));
+			assertThat(report.getErrors().get(0).getLine(), equalTo(1L));
+			assertThat(report.getErrors().get(1).getLine(), equalTo(2L));
+			assertThat(report.getErrors().get(1).getCode(), equalTo(RowError.NOT_INSERTED));
+			assertThat(report.getErrors().get(1).getMessage(), equalTo("Row not inserted, its chunk of 2 rows was rolled back"));
+		} finally {
+			ReflectionTestUtils.setField(target, "importChunkSize", 500);
+		}
+	}
+	
+	@Test(expected = AccessDeniedException.class)
+	@WithMockUser(authorities = {"CAR_READ"})
+	public void importCarsWrongUser() throws Exception {
+		importCars();
+	}
+	
+	@Test
+	@WithMockUser(authorities = {"CAR_UPDATE"})
+	public void patchCar() throws Exception {
+		//given
+		given(carRepository.patch(eq(2L), any(CarPatch.class), any(ZonedDateTime.class), isNull())).willReturn(1L);
+		
+		CarPatch patch = new CarPatch();
+		patch.setPrice(Optional.of(new BigDecimal("1000.00")));
+		carService.patch(2L, patch);
+		
+		// no pre-read
+		verify(carRepository, never()).findById(2L);
+	}
+	
+	@Test(expected = CarNotFoundException.class)
+	@WithMockUser(authorities = {"CAR_UPDATE"})
+	public void patchCarNotFound() throws Exception {
+		//given
+		given(carRepository.patch(eq(99L), any(CarPatch.class), any(ZonedDateTime.class), isNull())).willReturn(0L);
+		
+		carService.patch(99L, new CarPatch());
+	}
+	
+	@Test
+	public void patchCarInvalid() {
+		CarPatch patch = new CarPatch();
+		// explicit null
+		patch.setBrand(Optional.empty());
+		patch.setModel(Optional.of("Model too long"));
+		
+		Set<ConstraintViolation<CarPatch>> violations = Validation.buildDefaultValidatorFactory().getValidator().validate(patch);
+		assertThat(violations.size(), equalTo(2));
+		
+		// absent fields are not validated
+		assertThat(Validation.buildDefaultValidatorFactory().getValidator().validate(new CarPatch()).size(), equalTo(0));
+	}
+	
+	@Test(expected = AccessDeniedException.class)
+	@WithMockUser(authorities = {"MOCK"})
+	public void patchCarWrongUser() throws Exception {
+		patchCar();
 	}
 	
 	@Test(expected = CarNotFoundException.class)
 	@WithMockUser(authorities = {"CAR_DELETE"})
 	public void deleteCarNotFound() throws Exception {
 		//given
-		willThrow(new EmptyResultDataAccessException(0)).given(carRepository).deleteById(99L);
+		given(carRepository.deleteCarById(99L)).willReturn(0);
 
 		carService.deleteById(99L);
 	}
@@ -0,0 +1,131 @@
+package com.rest.api.test.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.rest.api.exception.BulkheadFullException;
+import com.rest.api.exception.CarNotFoundException;
+import com.rest.api.web.Bulkhead;
+import com.rest.api.web.VirtualThreads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BulkheadTest {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@After
+	public void stop() {
+		release.countDown();
+		bulkhead.shutdown();
+		SecurityContextHolder.clearContext();
+		LocaleContextHolder.resetLocaleContext();
+	}
+
+	@Test
+	public void contextsOfTheCaller() throws Exception {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null));
+		LocaleContextHolder.setLocale(Locale.ITALIAN);
+
+		CompletableFuture<String[]> result = bulkhead.submit(() -> new String[] {Thread.currentThread().getName(),
+				SecurityContextHolder.getContext().getAuthentication().getName(), LocaleContextHolder.getLocale().toString()});
+
+		String[] seen = result.get(10, TimeUnit.SECONDS);
+		assertThat(seen[0], startsWith("test-"));
+		assertThat(seen[1], equalTo("user"));
+		assertThat(seen[2], equalTo("it"));
+	}
+
+	@Test
+	public void rejectedWhenFull() throws Exception {
+		bulkhead.bindMetrics(registry);
+		bulkhead.submit(() -> release.await(10, TimeUnit.SECONDS));
+		// queued while the thread is busy
+		CompletableFuture<String> queued = bulkhead.submit(() -> "queued");
+		try {
+			bulkhead.submit(() -> "rejected");
+			fail("BulkheadFullException expected");
+		} catch (BulkheadFullException e) {
+		}
+
+		assertThat(registry.get("executor.queued").tag("name", "test").gauge().value(), equalTo(1.0));
+		assertThat(registry.get("bulkhead.rejected").tag("name", "test").counter().count(), equalTo(1.0));
+		release.countDown();
+		assertThat(queued.get(10, TimeUnit.SECONDS), equalTo("queued"));
+	}
+
+	@Test
+	public void virtualRejectedWhenFull() throws Exception {
+		assumeTrue(VirtualThreads.isSupported());
+		Bulkhead virtual = Bulkhead.virtual("virtual", 1, 1);
+		try {
+			virtual.bindMetrics(registry);
+			CountDownLatch started = new CountDownLatch(1);
+			CompletableFuture<String> running = virtual.submit(() -> {
+				started.countDown();
+				release.await(10, TimeUnit.SECONDS);
+				return Thread.currentThread().getName();
+			});
+			CompletableFuture<String> queued = virtual.submit(() -> "queued");
+			try {
+				virtual.submit(() -> "rejected");
+				fail("BulkheadFullException expected");
+			} catch (BulkheadFullException e) {
+			}
+
+			started.await(10, TimeUnit.SECONDS);
+			assertThat(registry.get("executor.active").tag("name", "virtual").gauge().value(), equalTo(1.0));
+			assertThat(registry.get("executor.queued").tag("name", "virtual").gauge().value(), equalTo(1.0));
+			assertThat(registry.get("bulkhead.rejected").tag("name", "virtual").counter().count(), equalTo(1.0));
+			release.countDown();
+			assertThat(running.get(10, TimeUnit.SECONDS), startsWith("virtual-"));
+			assertThat(queued.get(10, TimeUnit.SECONDS), equalTo("queued"));
+		} finally {
+			virtual.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void virtualNeedsJdk21() {
+		assumeFalse(VirtualThreads.isSupported());
+		Bulkhead.virtual("virtual", 1, 1);
+	}
+
+	@Test
+	public void inline() throws Exception {
+		String caller = Thread.currentThread().getName();
+		Bulkhead inline = Bulkhead.inline("test");
+
+		assertThat(inline.submit(() -> Thread.currentThread().getName()).get(), equalTo(caller));
+		CompletableFuture<Object> failed = inline.submit(() -> {
+			throw new CarNotFoundException();
+		});
+		try {
+			failed.get();
+			fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			assertThat(e.getCause() instanceof CarNotFoundException, is(true));
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.rest.api.test.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.rest.api.model.Car;
+
+/**
+ * CarJson against the bean (de)serialization of Car it replaces.
+ */
+public class CarJsonTest {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private final ObjectMapper beanMapper = Jackson2ObjectMapperBuilder.json().mixIn(Car.class, BeanCar.class).build();
+
+	@Test
+	public void sameDocument() throws Exception {
+		List<Car> cars = Arrays.asList(
+				new Car(1, "BMW", "320d", 0, new BigDecimal("40000.00"), ZonedDateTime.now(), ZonedDateTime.now()),
+				new Car(2, null, "A3 \"TDI\"", 3, null, null, null));
+
+		assertThat(beanMapper.getSerializerProviderInstance().findValueSerializer(Car.class), instanceOf(BeanSerializer.class));
+		assertThat(objectMapper.writeValueAsString(cars), equalTo(beanMapper.writeValueAsString(cars)));
+	}
+
+	@Test
+	public void readCar() throws Exception {
+		String json = "{\"id\":\"7\",\"brand\":\"Fiat\",\"model\":null,\"insertDate\":{\"ignored\":[1]},\"version\":2,\"price\":10000.50,\"updateDate\":\"x\"}";
+
+		Car car = objectMapper.readValue(json, Car.class);
+		Car bean = beanMapper.readValue(json, Car.class);
+		assertThat(car.getId(), equalTo(bean.getId()));
+		assertThat(car.getBrand(), equalTo(bean.getBrand()));
+		assertThat(car.getModel(), nullValue());
+		assertThat(car.getVersion(), equalTo(bean.getVersion()));
+		assertThat(car.getPrice(), equalTo(new BigDecimal("10000.50")));
+		assertThat(car.getUpdateDate(), nullValue());
+
+		List<Car> cars = objectMapper.readValue("[" + json + "," + json + "]", new TypeReference<List<Car>>() {});
+		assertThat(cars.get(1).getBrand(), equalTo("Fiat"));
+	}
+
+	@Test(expected = UnrecognizedPropertyException.class)
+	public void unknownField() throws Exception {
+		String json = "{\"id\":1,\"color\":{\"r\":1}}";
+
+		assertThat(objectMapper.readValue(json, Car.class).getId(), equalTo(1L));
+		objectMapper.copy().enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(json, Car.class);
+	}
+
+	@JsonSerialize(using = JsonSerializer.None.class)
+	@JsonDeserialize(using = JsonDeserializer.None.class)
+	private abstract static class BeanCar {
+	}
+
+}
@@ -0,0 +1,209 @@
+package com.rest.api.test.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.querydsl.binding.QuerydslBindingsFactory;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.querydsl.QuerydslPredicateArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.Predicate;
+import com.rest.api.exception.CarNotFoundException;
+import com.rest.api.model.Car;
+import com.rest.api.service.CarService;
+import com.rest.api.service.CarVersions;
+import com.rest.api.web.ApiRest;
+import com.rest.api.web.CarBulkheads;
+import com.rest.api.web.CarRest;
+import com.rest.api.web.handler.ControllerAdvice;
+
+/**
+ * CarRest with car.async.enabled=true: requests processed on the bulkhead threads and completed by
+ * the async dispatch.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CarRestAsyncTest {
+
+	private MockMvc mockMvc;
+
+	private final CarBulkheads bulkheads = new CarBulkheads(true, false, 1, 1, 1, 1);
+	private final Car car = new Car(1, "BMW", "320d", 0, new BigDecimal("40000.00"), ZonedDateTime.now(), ZonedDateTime.now());
+
+	@InjectMocks
+	private CarRest carRest;
+	@Mock
+	private CarService carService;
+
+	@Before
+	public void setup() {
+		ReflectionTestUtils.setField(carRest, "bulkheads", bulkheads);
+		ReflectionTestUtils.setField(carRest, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+		ReflectionTestUtils.setField(carRest, "cborConverter", new MappingJackson2CborHttpMessageConverter());
+		ReflectionTestUtils.setField(carRest, "smileConverter", new MappingJackson2SmileHttpMessageConverter());
+
+		ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+		messageSource.setBasename("classpath:messages");
+		messageSource.setUseCodeAsDefaultMessage(true);
+
+		mockMvc = MockMvcBuilders.standaloneSetup(carRest)
+				.setControllerAdvice(new ControllerAdvice().setMessageSource(messageSource))
+				.setCustomArgumentResolvers(
+						new QuerydslPredicateArgumentResolver(new QuerydslBindingsFactory(SimpleEntityPathResolver.INSTANCE), Optional.empty()),
+						new PageableHandlerMethodArgumentResolver())
+				.build();
+	}
+
+	@After
+	public void stop() {
+		bulkheads.shutdown();
+	}
+
+	// the response once the task is done
+	private MockHttpServletResponse dispatch(RequestBuilder builder) throws Exception {
+		MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+		return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+	}
+
+	@Test
+	public void getCar() throws Exception {
+		//given
+		given(carService.findById(1L)).willReturn(car);
+
+		//when
+		MockHttpServletResponse response = dispatch(get(ApiRest.API_PATH + "/cars/1"));
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo("\"" + CarVersions.of(car) + "\""));
+		assertThat(new ObjectMapper().readTree(response.getContentAsString()).get("model").asText(), equalTo("320d"));
+	}
+
+	@Test
+	public void getCarNotModified() throws Exception {
+		//given
+		String eTag = "\"" + CarVersions.of(car) + "\"";
+		given(carService.findVersion(1L)).willReturn(CarVersions.of(car));
+
+		//when
+		MockHttpServletResponse response = dispatch(get(ApiRest.API_PATH + "/cars/1").header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NOT_MODIFIED.value()));
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo(eTag));
+		assertThat(response.getContentLength(), equalTo(0));
+		verify(carService, never()).findById(any(Long.class));
+	}
+
+	@Test
+	public void getCarNotFound() throws Exception {
+		//given
+		willThrow(new CarNotFoundException()).given(carService).findById(any(Long.class));
+
+		//when
+		MockHttpServletResponse response = dispatch(get(ApiRest.API_PATH + "/cars/1"));
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NOT_FOUND.value()));
+	}
+
+	@Test
+	public void listCars() throws Exception {
+		//given
+		given(carService.findAllSliced(any(Predicate.class), any(PageRequest.class)))
+				.willReturn(new SliceImpl<>(Arrays.asList(car), PageRequest.of(0, 1), true));
+
+		//when
+		MockHttpServletResponse response = dispatch(get(ApiRest.API_PATH + "/cars?size=1&brand=BMW"));
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getHeader("Pagination-Page"), equalTo("0"));
+		assertThat(response.getHeader("Link"), startsWith("<http://localhost" + ApiRest.API_PATH + "/cars?brand=BMW&page=1&size=1>; rel=\"next\""));
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo("\"" + CarVersions.ofPage(Arrays.asList(car), true, -1) + "\""));
+	}
+
+	@Test
+	public void updateCarIfMatch() throws Exception {
+		//given
+		given(carService.update(eq(1L), any(Car.class), eq(Arrays.asList("a")))).willReturn("c");
+
+		//when
+		MockHttpServletResponse response = dispatch(put(ApiRest.API_PATH + "/cars/1")
+				.header(HttpHeaders.IF_MATCH, "\"a\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(car)));
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NO_CONTENT.value()));
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo("\"c\""));
+	}
+
+	@Test
+	public void getCarBulkheadFull() throws Exception {
+		//given
+		CountDownLatch release = new CountDownLatch(1);
+		given(carService.findById(1L)).willAnswer(invocation -> {
+			release.await(10, TimeUnit.SECONDS);
+			return car;
+		});
+
+		try {
+			// one running, one queued
+			mockMvc.perform(get(ApiRest.API_PATH + "/cars/1"));
+			mockMvc.perform(get(ApiRest.API_PATH + "/cars/1"));
+
+			//when
+			MockHttpServletResponse response;
+			response = mockMvc.perform(get(ApiRest.API_PATH + "/cars/1")).andReturn().getResponse();
+
+			//then
+			assertThat(response.getStatus(), equalTo(HttpStatus.SERVICE_UNAVAILABLE.value()));
+			assertThat(response.getHeader(HttpHeaders.RETRY_AFTER), equalTo("1"));
+		} finally {
+			release.countDown();
+		}
+	}
+
+}
@@ -4,13 +4,23 @@ import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -20,38 +30,61 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.json.JacksonTester;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.querydsl.binding.QuerydslBindingsFactory;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.data.web.querydsl.QuerydslPredicateArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.querydsl.core.types.Predicate;
+import com.rest.api.exception.CarModifiedException;
 import com.rest.api.exception.CarNotFoundException;
 import com.rest.api.model.Car;
+import com.rest.api.model.CarPatch;
+import com.rest.api.model.ImportReport;
+import com.rest.api.service.CarCursor;
+import com.rest.api.service.CarFields;
 import com.rest.api.service.CarService;
+import com.rest.api.service.CarVersions;
+import com.rest.api.service.ImportRow;
 import com.rest.api.web.ApiRest;
+import com.rest.api.web.CarBulkheads;
 import com.rest.api.web.CarRest;
 import com.rest.api.web.handler.ControllerAdvice;
 
@@ -63,17 +96,18 @@ public class CarRestLevel1Test {
 	private Car carJson, carBean;
 	private List<Car> carList = new ArrayList<>();
 	private Page<Car> carPage;
+	private Slice<Car> carSlice;
 	
     // This object will be magically initialized by the initFields method below.
     private JacksonTester<List<Car>> jsonCars;
     private JacksonTester<Car> jsonCar;
+    private ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
 	
 	@InjectMocks
 	private CarRest carRest;
 	@Mock
 	private CarService carService;
-	@Mock
-	private ApplicationEventPublisher eventPublisher;
 	
 	//@InjectMocks
 	//private ControllerAdvice controllerAdvice;
@@ -86,6 +120,12 @@ public class CarRestLevel1Test {
         // MockitoAnnotations.initMocks(this);
         // Initializes the JacksonTester
         JacksonTester.initFields(this, new ObjectMapper());    
+
+        // beans of the web configuration
+        ReflectionTestUtils.setField(carRest, "bulkheads", new CarBulkheads(false, false, 1, 1, 1, 1));
+        ReflectionTestUtils.setField(carRest, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(carRest, "cborConverter", new MappingJackson2CborHttpMessageConverter());
+        ReflectionTestUtils.setField(carRest, "smileConverter", new MappingJackson2SmileHttpMessageConverter());
             
         // MockMvc standalone approach
         mockMvc = MockMvcBuilders.standaloneSetup(carRest)
@@ -104,6 +144,7 @@ public class CarRestLevel1Test {
         carBean = new Car(10, "Brand", "Model", 1, new BigDecimal("1000.00"), ZonedDateTime.now(), ZonedDateTime.now());
         
         carPage = new PageImpl<>(carList, PageRequest.of(0, 2), 5);
+        carSlice = new SliceImpl<>(carList, PageRequest.of(0, 2), true);
     }
 	
 	private MessageSource messageSource() {
@@ -118,8 +159,8 @@ public class CarRestLevel1Test {
 	@Test
 	public void listCars() throws Exception {
 		//given
-		given(carService.findAllPaginated(any(Predicate.class), any(PageRequest.class)))
-				.willReturn(carPage);
+		given(carService.findAllSliced(any(Predicate.class), any(PageRequest.class)))
+				.willReturn(carSlice);
 		//when
 		mockMvc.perform(get(ApiRest.API_PATH + "/cars"))
 		
@@ -141,16 +182,309 @@ public class CarRestLevel1Test {
 	@Test
 	public void listCars2() throws Exception {
 		//given
-		given(carService.findAllPaginated(any(Predicate.class), any(PageRequest.class)))
+		given(carService.findAllPaginated(nullable(Predicate.class), any(PageRequest.class)))
 				.willReturn(carPage);
 		
 		//when
 		MockHttpServletResponse response;
-		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars")).andReturn().getResponse();
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars?withCount=true")).andReturn().getResponse();
 
 		//then
 		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
         assertThat(response.getContentAsString(), equalTo(jsonCars.write(carList).getJson()));	
+		assertThat(response.getHeader("Pagination-Total-Count"), equalTo("5"));
+		assertThat(response.getHeader("Pagination-Page-Count"), equalTo("3"));
+		assertThat(response.getHeader("Link"), equalTo("<http://localhost/api/v1/cars?withCount=true&page=1&size=20>; rel=\"next\", "
+				+ "<http://localhost/api/v1/cars?withCount=true&page=2&size=20>; rel=\"last\""));
+	}
+	
+	@Test
+	public void listCarsByKeyset() throws Exception {
+		//given
+		given(carService.findAllByKeyset(nullable(Predicate.class), isNull(), any(PageRequest.class)))
+				.willReturn(new SliceImpl<>(carList, PageRequest.of(0, 2, Sort.by("id")), true));
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars?after=&size=2")).andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getContentAsString(), equalTo(jsonCars.write(carList).getJson()));
+	}
+	
+	@Test
+	public void listCarsByKeysetNextPage() throws Exception {
+		//given
+		given(carService.findAllByKeyset(nullable(Predicate.class), any(CarCursor.class), any(PageRequest.class)))
+				.willReturn(new SliceImpl<>(carList, PageRequest.of(0, 2, Sort.by("id")), false));
+		String cursor = CarCursor.after(carList.get(0), Sort.by("id")).encode();
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars?after=" + cursor + "&size=2")).andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getHeader("Link"), equalTo("<http://localhost/api/v1/cars?after=&size=2>; rel=\"first\""));
+	}
+	
+	@Test
+	public void listCarsFields() throws Exception {
+		//given
+		CarFields fields = CarFields.parse("brand,price");
+		List<Map<String, Object>> content = new ArrayList<>();
+		carList.forEach(car -> content.add(fields.toMap(car)));
+		given(carService.findAllSliced(nullable(Predicate.class), any(PageRequest.class), any(CarFields.class)))
+				.willReturn(new SliceImpl<>(content, PageRequest.of(0, 2), false));
+		
+		//when
+		mockMvc.perform(get(ApiRest.API_PATH + "/cars?fields=brand,price"))
+		
+		//then
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(2)))
+			.andExpect(jsonPath("$[0].id", is((int)carList.get(0).getId())))
+			.andExpect(jsonPath("$[0].brand", is(carList.get(0).getBrand())))
+			.andExpect(jsonPath("$[0].model").doesNotExist())
+			.andExpect(jsonPath("$[0].version").doesNotExist())
+		;
+	}
+	
+	@Test
+	public void listCarsInvalidFields() throws Exception {
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars?fields=brand,insertDate")).andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.BAD_REQUEST.value()));
+	}
+	
+	@Test
+	public void getCarFields() throws Exception {
+		//given
+		given(carService.findById(eq(10L), any(CarFields.class)))
+				.willReturn(CarFields.parse("model").toMap(carBean));
+		
+		//when
+		mockMvc.perform(get(ApiRest.API_PATH + "/cars/10?fields=model"))
+		
+		//then
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.id", is(10)))
+			.andExpect(jsonPath("$.model", is(carBean.getModel())))
+			.andExpect(jsonPath("$.brand").doesNotExist())
+		;
+	}
+	
+	@Test
+	public void listCarsInvalidCursor() throws Exception {
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars?after=xyz")).andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.BAD_REQUEST.value()));
+	}
+	
+	@Test
+	public void exportCars() throws Exception {
+		//given
+		willAnswer(invocation -> {
+			Consumer<Car> action = invocation.getArgument(1);
+			carList.forEach(action);
+			return null;
+		}).given(carService).export(nullable(Predicate.class), any());
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars/export")).andReturn().getResponse();
+		
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getContentType(), startsWith(ApiRest.NDJSON_VALUE));
+		assertThat(response.getContentAsString(), equalTo(
+				jsonCar.write(carList.get(0)).getJson() + "\n" + jsonCar.write(carList.get(1)).getJson() + "\n"));
+	}
+	
+	@Test
+	public void exportCarsQuality() throws Exception {
+		//given
+		willAnswer(invocation -> null).given(carService).export(nullable(Predicate.class), any());
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars/export").header(HttpHeaders.ACCEPT, ApiRest.NDJSON_VALUE + ", " + ApiRest.CSV_VALUE + ";q=0")).andReturn().getResponse();
+		
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getContentType(), startsWith(ApiRest.NDJSON_VALUE));
+		
+		//when
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars/export").header(HttpHeaders.ACCEPT, ApiRest.CSV_VALUE + ";q=0.5, " + ApiRest.SMILE_VALUE)).andReturn().getResponse();
+		
+		//then
+		assertThat(response.getContentType(), startsWith(ApiRest.SMILE_VALUE));
+	}
+	
+	@Test
+	public void exportCarsCsv() throws Exception {
+		//given
+		willAnswer(invocation -> {
+			Consumer<Car> action = invocation.getArgument(1);
+			carList.forEach(action);
+			return null;
+		}).given(carService).export(nullable(Predicate.class), any());
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars/export").accept(ApiRest.CSV_VALUE)).andReturn().getResponse();
+		
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getContentType(), startsWith(ApiRest.CSV_VALUE));
+		assertThat(response.getContentAsString(), equalTo(
+				"id,brand,model,version,price\r\n1,BMW,320d,0,40000.00\r\n2,Audi,A3 2.0 TDI,0,35000.00\r\n"));
+	}
+	
+	@Test
+	public void exportCarsSmile() throws Exception {
+		//given
+		willAnswer(invocation -> {
+			Consumer<Car> action = invocation.getArgument(1);
+			carList.forEach(action);
+			return null;
+		}).given(carService).export(nullable(Predicate.class), any());
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars/export").accept(ApiRest.SMILE_VALUE)).andReturn().getResponse();
+		
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getContentType(), equalTo(ApiRest.SMILE_VALUE));
+		MappingIterator<Car> cars = smileMapper.readerFor(Car.class).readValues(response.getContentAsByteArray());
+		assertThat(cars.next().getModel(), equalTo("320d"));
+		assertThat(cars.next().getModel(), equalTo("A3 2.0 TDI"));
+		assertThat(cars.hasNext(), is(false));
+	}
+	
+	@Test
+	public void importCarsCsv() throws Exception {
+		//given
+		List<ImportRow> rows = new ArrayList<>();
+		willAnswer(invocation -> {
+			Iterator<ImportRow> it = invocation.getArgument(0);
+			it.forEachRemaining(rows::add);
+			return new ImportReport(100);
+		}).given(carService).importCars(any());
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(post(ApiRest.API_PATH + "/cars/import")
+									.contentType(ApiRest.CSV_VALUE)
+									.content("id,brand,model,version,price\r\n1,BMW,320d,0,40000.00\r\n\r\n,\"Audi, \"\"A\"\"\",A3,1,35000.00\r\nnot,a,car\r\n,\"Fiat\r\nPunto\",Punto,0,10000.00\r\n5,VW,Polo,0,16000.00\r\n"))
+							.andReturn().getResponse();
+		
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(rows.size(), equalTo(5));
+		assertThat(rows.get(0).getLine(), equalTo(2L));
+		assertThat(rows.get(0).getCar().getModel(), equalTo("320d"));
+		assertThat(rows.get(0).getCar().getId(), equalTo(0L));
+		assertThat(rows.get(1).getLine(), equalTo(4L));
+		assertThat(rows.get(1).getCar().getBrand(), equalTo("Audi, \"A\""));
+		assertThat(rows.get(1).getCar().getPrice(), equalTo(new BigDecimal("35000.00")));
+		assertThat(rows.get(2).getLine(), equalTo(5L));
+		assertThat(rows.get(2).getCar(), is(nullValue()));
+		// quoted line break
+		assertThat(rows.get(3).getLine(), equalTo(6L));
+		assertThat(rows.get(3).getCar().getBrand(), equalTo("Fiat\nPunto"));
+		assertThat(rows.get(4).getLine(), equalTo(8L));
+		assertThat(rows.get(4).getCar().getModel(), equalTo("Polo"));
+	}
+	
+	@Test
+	public void importCarsNdjson() throws Exception {
+		//given
+		List<ImportRow> rows = new ArrayList<>();
+		willAnswer(invocation -> {
+			Iterator<ImportRow> it = invocation.getArgument(0);
+			it.forEachRemaining(rows::add);
+			return new ImportReport(100);
+		}).given(carService).importCars(any());
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(post(ApiRest.API_PATH + "/cars/import")
+									.contentType(ApiRest.NDJSON_VALUE)
+									.content(jsonCar.write(carJson).getJson() + "\nnull\n{\"brand\": \n"))
+							.andReturn().getResponse();
+		
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(rows.size(), equalTo(3));
+		assertThat(rows.get(0).getCar().getBrand(), equalTo(carJson.getBrand()));
+		assertThat(rows.get(1).getCar(), is(nullValue()));
+		assertThat(rows.get(1).getError(), notNullValue());
+		assertThat(rows.get(2).getCar(), is(nullValue()));
+		assertThat(rows.get(2).getError(), notNullValue());
+	}
+	
+	@Test
+	public void importCarsCbor() throws Exception {
+		//given
+		List<ImportRow> rows = new ArrayList<>();
+		willAnswer(invocation -> {
+			Iterator<ImportRow> it = invocation.getArgument(0);
+			it.forEachRemaining(rows::add);
+			return new ImportReport(100);
+		}).given(carService).importCars(any());
+		byte[] car = cborMapper.writeValueAsBytes(carBean);
+		// a car, a null and a car
+		byte[] body = Arrays.copyOf(car, 2 * car.length + 1);
+		body[car.length] = cborMapper.writeValueAsBytes(null)[0];
+		System.arraycopy(car, 0, body, car.length + 1, car.length);
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(post(ApiRest.API_PATH + "/cars/import")
+									.contentType(ApiRest.CBOR_VALUE)
+									.content(body))
+							.andReturn().getResponse();
+		
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(rows.size(), equalTo(3));
+		assertThat(rows.get(1).getLine(), equalTo(2L));
+		assertThat(rows.get(1).getCar(), is(nullValue()));
+		assertThat(rows.get(2).getLine(), equalTo(3L));
+		assertThat(rows.get(2).getCar().getBrand(), equalTo(carBean.getBrand()));
+		assertThat(rows.get(2).getCar().getId(), equalTo(0L));
+	}
+	
+	@Test
+	public void importCarsContentTypeCase() throws Exception {
+		//given
+		List<ImportRow> rows = new ArrayList<>();
+		willAnswer(invocation -> {
+			Iterator<ImportRow> it = invocation.getArgument(0);
+			it.forEachRemaining(rows::add);
+			return new ImportReport(100);
+		}).given(carService).importCars(any());
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(post(ApiRest.API_PATH + "/cars/import")
+									.header(HttpHeaders.CONTENT_TYPE, "Application/CBOR")
+									.content(cborMapper.writeValueAsBytes(carBean)))
+							.andReturn().getResponse();
+		
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(rows.size(), equalTo(1));
+		assertThat(rows.get(0).getCar().getBrand(), equalTo(carBean.getBrand()));
 	}
 	
 	@Test
@@ -165,6 +499,58 @@ public class CarRestLevel1Test {
 		//then
 		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
         assertThat(response.getContentAsString(), equalTo(jsonCar.write(carList.get(1)).getJson()));		
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo("\"" + CarVersions.of(carList.get(1)) + "\""));
+	}
+	
+	@Test
+	public void getCarCbor() throws Exception {
+		//given
+		given(carService.findById(1L)).willReturn(carList.get(1));
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars/1").accept(ApiRest.CBOR_VALUE)).andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+		assertThat(response.getContentType(), startsWith(ApiRest.CBOR_VALUE));
+		Car car = cborMapper.readValue(response.getContentAsByteArray(), Car.class);
+		assertThat(car.getModel(), equalTo("A3 2.0 TDI"));
+		assertThat(car.getPrice(), equalTo(new BigDecimal("35000.00")));
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo("\"" + CarVersions.of(carList.get(1)) + "+cbor\""));
+		assertThat(response.getHeader(HttpHeaders.VARY), equalTo(HttpHeaders.ACCEPT));
+	}
+	
+	@Test
+	public void getCarNotModified() throws Exception {
+		//given
+		String eTag = "\"" + CarVersions.of(carList.get(1)) + "\"";
+		given(carService.findVersion(1L)).willReturn(CarVersions.of(carList.get(1)));
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars/1").header(HttpHeaders.IF_NONE_MATCH, eTag)).andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NOT_MODIFIED.value()));
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo(eTag));
+		assertThat(response.getContentLength(), equalTo(0));
+		verify(carService, never()).findById(any(Long.class));
+	}
+	
+	@Test
+	public void listCarsNotModified() throws Exception {
+		//given
+		String version = CarVersions.ofPage(carList, true, -1);
+		given(carService.findPageVersion(nullable(Predicate.class), any(PageRequest.class), eq(false))).willReturn(version);
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars").header(HttpHeaders.IF_NONE_MATCH, "\"" + version + "\"")).andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NOT_MODIFIED.value()));
+		verify(carService, never()).findAllSliced(nullable(Predicate.class), any(PageRequest.class));
 	}
 	
 	@Test
@@ -230,6 +616,101 @@ public class CarRestLevel1Test {
 		assertThat(response.getStatus(), equalTo(HttpStatus.NOT_FOUND.value()));
 	}
 	
+	@Test
+	public void updateCarIfMatch() throws Exception {
+		//given
+		given(carService.update(eq(1L), any(Car.class), eq(Arrays.asList("a", "b")))).willReturn("c");
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(put(ApiRest.API_PATH + "/cars/1")
+									.header(HttpHeaders.IF_MATCH, "\"a\", W/\"w\", \"b\"")
+									.contentType(MediaType.APPLICATION_JSON)
+									.content(jsonCar.write(carJson).getJson()))
+							.andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NO_CONTENT.value()));
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo("\"c\""));
+	}
+	
+	@Test
+	public void updateCarCbor() throws Exception {
+		//given
+		ArgumentCaptor<Car> car = ArgumentCaptor.forClass(Car.class);
+		given(carService.update(eq(1L), car.capture(), eq(Arrays.asList("a")))).willReturn("c");
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(put(ApiRest.API_PATH + "/cars/1")
+									.header(HttpHeaders.IF_MATCH, "\"a+cbor\"")
+									.accept(ApiRest.CBOR_VALUE)
+									.contentType(ApiRest.CBOR_VALUE)
+									.content(cborMapper.writeValueAsBytes(carJson)))
+							.andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NO_CONTENT.value()));
+		assertThat(car.getValue().getBrand(), equalTo(carJson.getBrand()));
+		assertThat(car.getValue().getPrice(), equalTo(carJson.getPrice()));
+		assertThat(response.getHeader(HttpHeaders.ETAG), equalTo("\"c+cbor\""));
+	}
+	
+	@Test
+	public void updateCarModified() throws Exception {
+		//given
+		willThrow(new CarModifiedException()).given(carService).update(any(Long.class), any(Car.class), any());
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(put(ApiRest.API_PATH + "/cars/1")
+									.header(HttpHeaders.IF_MATCH, "\"a\"")
+									.contentType(MediaType.APPLICATION_JSON)
+									.content(jsonCar.write(carJson).getJson()))
+							.andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.PRECONDITION_FAILED.value()));
+		verify(carService, never()).update(any(Long.class), any(Car.class));
+	}
+	
+	@Test
+	public void patchCar() throws Exception {
+		//given
+		willDoNothing().given(carService).patch(any(Long.class), any(CarPatch.class));
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(patch(ApiRest.API_PATH + "/cars/1")
+									.contentType("application/merge-patch+json")
+									.content("{\"price\": 1000.00, \"model\": null}"))
+							.andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NO_CONTENT.value()));
+		ArgumentCaptor<CarPatch> patch = ArgumentCaptor.forClass(CarPatch.class);
+		verify(carService).patch(eq(1L), patch.capture());
+		assertThat(patch.getValue().getBrand(), is(nullValue()));
+		assertThat(patch.getValue().getModel(), equalTo(Optional.empty()));
+		assertThat(patch.getValue().getPrice(), equalTo(Optional.of(new BigDecimal("1000.00"))));
+	}
+	
+	@Test
+	public void patchCarNotFound() throws Exception {
+		//given
+		willThrow(new CarNotFoundException()).given(carService).patch(any(Long.class), any(CarPatch.class));
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(patch(ApiRest.API_PATH + "/cars/99")
+									.contentType("application/merge-patch+json")
+									.content("{\"price\": 1000.00}"))
+							.andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.NOT_FOUND.value()));
+	}
+	
 	@Test
 	public void deleteCar() throws Exception {
 		//given
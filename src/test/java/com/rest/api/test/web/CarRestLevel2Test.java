@@ -2,10 +2,13 @@ package com.rest.api.test.web;
 
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.BDDMockito.willThrow;
@@ -31,23 +34,29 @@ import org.springframework.boot.autoconfigure.context.MessageSourceAutoConfigura
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.querydsl.core.types.Predicate;
 import com.rest.api.exception.CarNotFoundException;
 import com.rest.api.model.Car;
 import com.rest.api.service.CarService;
 import com.rest.api.web.ApiRest;
+import com.rest.api.web.CarBulkheads;
 import com.rest.api.web.CarRest;
 
 @RunWith(SpringRunner.class)
@@ -58,11 +67,13 @@ import com.rest.api.web.CarRest;
 @EnableSpringDataWebSupport
 // Load messages.properties
 @ImportAutoConfiguration(MessageSourceAutoConfiguration.class)
+@Import(CarBulkheads.class)
 public class CarRestLevel2Test {
 	
 	private Car carJson, carBean;
 	private List<Car> carList = new ArrayList<>();
 	private Page<Car> carPage;
+	private Slice<Car> carSlice;
 	
 	// This object will be magically initialized by the initFields method below.
     private JacksonTester<List<Car>> jsonCars;
@@ -71,10 +82,14 @@ public class CarRestLevel2Test {
 	@Autowired
 	private MockMvc mockMvc;
 	
+	@Autowired
+	private RequestMappingHandlerAdapter handlerAdapter;
+	
+	@Autowired
+	private MappingJackson2SmileHttpMessageConverter smileConverter;
+	
 	@MockBean
 	private CarService carService;
-	@MockBean
-	private ApplicationEventPublisher eventPublishere;
 	
 	@Before
     public void setup() {
@@ -90,13 +105,14 @@ public class CarRestLevel2Test {
         carBean = new Car(10, "Brand", "Model", 1, new BigDecimal("1000.00"), ZonedDateTime.now(), ZonedDateTime.now());
         
         carPage = new PageImpl<>(carList, PageRequest.of(0, 2), 5);
+        carSlice = new SliceImpl<>(carList, PageRequest.of(0, 2), true);
     }
 	
 	@Test
 	public void listCars() throws Exception {
 		//given
-		given(carService.findAllPaginated(any(Predicate.class), any(PageRequest.class)))
-				.willReturn(carPage);
+		given(carService.findAllSliced(any(Predicate.class), any(PageRequest.class)))
+				.willReturn(carSlice);
 		
 		//when
 		mockMvc.perform(get(ApiRest.API_PATH + "/cars"))
@@ -119,11 +135,11 @@ public class CarRestLevel2Test {
 	@Test
 	public void listCars2() throws Exception {
 		//given
-		given(carService.findAllPaginated(any(Predicate.class), any(PageRequest.class)))
+		given(carService.findAllPaginated(nullable(Predicate.class), any(PageRequest.class)))
 				.willReturn(carPage);
 		//when
 		MockHttpServletResponse response;
-		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars")).andReturn().getResponse();
+		response = mockMvc.perform(get(ApiRest.API_PATH + "/cars?withCount=true")).andReturn().getResponse();
 
 		//then
 		assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
@@ -174,6 +190,24 @@ public class CarRestLevel2Test {
 		assertThat(response.getHeaderValue("location").toString(), endsWith(ApiRest.API_PATH + "/cars/" + carBean.getId()));
 	}
 	
+	@Test
+	public void addCarSmile() throws Exception {
+		//given
+		given(carService.add(any(Car.class))).willReturn(carBean);
+		
+		//when
+		MockHttpServletResponse response;
+		response = mockMvc.perform(post(ApiRest.API_PATH + "/cars")
+									.contentType(ApiRest.SMILE_VALUE)
+									.content(new ObjectMapper(new SmileFactory()).writeValueAsBytes(carJson)))
+							.andReturn().getResponse();
+
+		//then
+		assertThat(response.getStatus(), equalTo(HttpStatus.CREATED.value()));
+		// the WebConfig converter replaced the default one
+		assertThat(handlerAdapter.getMessageConverters(), hasItem(sameInstance(smileConverter)));
+	}
+	
 	@Test
 	public void updateCar() throws Exception {
 		//given
@@ -1,8 +1,8 @@
 
-INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (NEXT VALUE FOR CAR_ID_SEQ, 'BMW', '320d', 1, 40000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
-INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (NEXT VALUE FOR CAR_ID_SEQ, 'Audi', 'A3 2.0 TDI', 0, 35000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
-INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (NEXT VALUE FOR CAR_ID_SEQ, 'Mercedes', 'A 220d', 0, 25000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
-INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (NEXT VALUE FOR CAR_ID_SEQ, 'Fiat', 'Punto', 0, 10000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
-INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (NEXT VALUE FOR CAR_ID_SEQ, 'VW', 'Polo', 0, 16000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
+INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (1, 'BMW', '320d', 1, 40000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
+INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (2, 'Audi', 'A3 2.0 TDI', 0, 35000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
+INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (3, 'Mercedes', 'A 220d', 0, 25000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
+INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (4, 'Fiat', 'Punto', 0, 10000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
+INSERT INTO CAR (ID, BRAND, MODEL, VERSION, PRICE, INSERT_DATE, UPDATE_DATE) VALUES (5, 'VW', 'Polo', 0, 16000.00, '2018-06-01 12:01:33.123', '2018-06-01 12:01:33.123');
 
 INSERT INTO FIELD (ID, F_STRING) VALUES (NEXT VALUE FOR FIELD_ID_SEQ, 'text');
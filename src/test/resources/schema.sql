@@ -1,4 +1,5 @@
-CREATE SEQUENCE CAR_ID_SEQ START WITH 1 INCREMENT BY 1;
+-- pooled-lo ids: INCREMENT BY must match the Car id generator increment_size, seed rows use ids below START WITH
+CREATE SEQUENCE CAR_ID_SEQ START WITH 6 INCREMENT BY 50;
 
 CREATE TABLE CAR (
 	ID BIGINT,